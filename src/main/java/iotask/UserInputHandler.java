@@ -1,10 +1,23 @@
 package main.java.iotask;
 
 import main.java.iotask.exception.CommandException;
+import main.java.iotask.executor.BatchCommandRunner;
+import main.java.iotask.config.ApplicationConfig;
 import main.java.iotask.executor.CommandExecutor;
+import main.java.iotask.server.CommandClient;
+import main.java.iotask.server.CommandServer;
 
 import java.util.Scanner;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.SocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
 import java.util.logging.Level;
@@ -13,6 +26,11 @@ import java.io.IOException;
 
 /**
  * A class for handling user input and executing commands based on the input.
+ * Commands are read interactively from the console, or from a script when the application is started with {@code --script <file>}
+ * ({@code --script -} reads the script from the standard input). A script can be executed by several worker threads with {@code --parallel <threads>}.
+ * With {@code --serve <port|socket>} the application runs as a daemon executing the commands sent by clients over a localhost TCP port or a Unix domain socket,
+ * and with {@code --connect <port|socket>} it sends the script, or the standard input, to such a daemon instead of executing it.
+ * A daemon listens on a TCP port only with the token of the iotask.server.token setting, which its clients send too.
  *
  * @author Nikita Gubin
  */
@@ -23,17 +41,91 @@ public class UserInputHandler {
      */
     private static final Logger logger = Logger.getLogger(UserInputHandler.class.getName());
 
+    /**
+     * The command-line option for executing a script of commands.
+     */
+    private static final String SCRIPT_OPTION = "--script";
+
+    /**
+     * The command-line option for the number of worker threads executing a script.
+     */
+    private static final String PARALLEL_OPTION = "--parallel";
+
+    /**
+     * The command-line option for running as a daemon listening on a port or a Unix domain socket.
+     */
+    private static final String SERVE_OPTION = "--serve";
+
+    /**
+     * The command-line option for sending the commands to a daemon listening on a port or a Unix domain socket.
+     */
+    private static final String CONNECT_OPTION = "--connect";
+
+    /**
+     * The setting holding the number of commands the daemon executes at the same time.
+     */
+    public static final String SERVER_PARALLELISM_SETTING = "iotask.server.parallelism";
+
+    /**
+     * The setting holding the number of connections the daemon serves at the same time.
+     */
+    public static final String SERVER_MAX_CONNECTIONS_SETTING = "iotask.server.maxConnections";
+
+    /**
+     * The setting holding the token the clients of a daemon listening on a TCP port authenticate with.
+     */
+    public static final String SERVER_TOKEN_SETTING = "iotask.server.token";
+
+    /**
+     * The script path standing for the standard input.
+     */
+    private static final String STANDARD_INPUT = "-";
+
+    /**
+     * The size of the buffer of the script output.
+     */
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
     /**
      * Reads user input from the console and executes the corresponding command.
+     * If a script is given, executes its commands and exits with a non-zero status if any of them failed.
+     * If a daemon address is given, serves the clients or sends the commands to the daemon.
      *
      * @param args the command-line arguments
      * @see CommandExecutor
      * @see Scanner
+     * @see BatchCommandRunner
+     * @see CommandServer
+     * @see CommandClient
      */
     public static void main(String[] args) {
         loadLoggingProperties();
 
+        String scriptPath = null;
+        String serveAddress = null;
+        String connectAddress = null;
+        int parallelism = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case SCRIPT_OPTION -> scriptPath = args[i + 1];
+                case PARALLEL_OPTION -> parallelism = Integer.parseInt(args[i + 1]);
+                case SERVE_OPTION -> serveAddress = args[i + 1];
+                case CONNECT_OPTION -> connectAddress = args[i + 1];
+                default -> logger.log(Level.WARNING, "Unknown command-line option: {0}", args[i]);
+            }
+        }
+        if (connectAddress != null) {
+            System.exit(runClient(connectAddress, scriptPath != null ? scriptPath : STANDARD_INPUT));
+        }
+
         CommandExecutor commandExecutor = new CommandExecutor();
+        if (serveAddress != null) {
+            System.exit(runServer(commandExecutor, serveAddress));
+        }
+        if (scriptPath != null) {
+            System.exit(runScript(commandExecutor, scriptPath, parallelism));
+        }
+
         try (Scanner scanner = new Scanner(System.in)) {
             String commandLine;
             while (true) {
@@ -42,12 +134,98 @@ public class UserInputHandler {
                 try {
                     commandExecutor.executeCommand(commandLine);
                 } catch (CommandException e) {
-                    logger.log(Level.SEVERE, "An error occurred while executing the command:\n" + e.getMessage());
+                    logger.log(Level.SEVERE, "An error occurred while executing the command:\n{0}", e.getMessage());
                 }
             }
         }
     }
 
+    /**
+     * Executes the commands of the script without prompts, reporting the failures and the summary to the buffered standard output.
+     *
+     * @param commandExecutor the executor the commands are executed with
+     * @param scriptPath      the path to the script, or {@code -} for the standard input
+     * @param parallelism     the number of commands executed at the same time
+     * @return the exit status: 0 if all commands succeeded, 1 if any failed, 2 if the script could not be read
+     */
+    private static int runScript(CommandExecutor commandExecutor, String scriptPath, int parallelism) {
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), OUTPUT_BUFFER_SIZE));
+        try (BufferedReader script = scriptPath.equals(STANDARD_INPUT) ? new BufferedReader(new InputStreamReader(System.in)) : Files.newBufferedReader(Paths.get(scriptPath))) {
+            BatchCommandRunner.Summary summary = new BatchCommandRunner(commandExecutor, out, parallelism).run(script);
+            out.println(summary);
+            return summary.failed() == 0 ? 0 : 1;
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, e, () -> "Could not read the script: " + scriptPath);
+            return 2;
+        } finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Runs the daemon until the process is stopped.
+     *
+     * @param commandExecutor the executor the commands are executed with
+     * @param address         the port or the Unix domain socket path to listen on
+     * @return the exit status: 0 if the daemon was stopped, 2 if the address is invalid or the daemon could not listen on it
+     */
+    private static int runServer(CommandExecutor commandExecutor, String address) {
+        SocketAddress socketAddress = parseAddress(address);
+        if (socketAddress == null) {
+            return 2;
+        }
+        try {
+            CommandServer server = new CommandServer(commandExecutor, socketAddress, ApplicationConfig.getString(SERVER_TOKEN_SETTING, ""),
+                    ApplicationConfig.getInt(SERVER_PARALLELISM_SETTING, Runtime.getRuntime().availableProcessors()), ApplicationConfig.getInt(SERVER_MAX_CONNECTIONS_SETTING, 16));
+            Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+            server.serve();
+            return 0;
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, e, () -> "Could not serve on: " + address);
+            return 2;
+        }
+    }
+
+    /**
+     * Sends the commands of the script to the daemon, reporting the failures and the summary to the buffered standard output.
+     *
+     * @param address    the port or the Unix domain socket path of the daemon
+     * @param scriptPath the path to the script, or {@code -} for the standard input
+     * @return the exit status: 0 if all commands succeeded, 1 if any failed, 2 if the address is invalid, the script could not be read or the daemon could not be reached
+     */
+    private static int runClient(String address, String scriptPath) {
+        SocketAddress socketAddress = parseAddress(address);
+        if (socketAddress == null) {
+            return 2;
+        }
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), OUTPUT_BUFFER_SIZE));
+        try (BufferedReader script = scriptPath.equals(STANDARD_INPUT) ? new BufferedReader(new InputStreamReader(System.in)) : Files.newBufferedReader(Paths.get(scriptPath))) {
+            BatchCommandRunner.Summary summary = new CommandClient(socketAddress, ApplicationConfig.getString(SERVER_TOKEN_SETTING, ""), out).run(script);
+            out.println(summary);
+            return summary.failed() == 0 ? 0 : 1;
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, e, () -> "Could not send the script " + scriptPath + " to " + address);
+            return 2;
+        } finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Parses the daemon address given on the command line, reporting an invalid one.
+     *
+     * @param address the port or the Unix domain socket path
+     * @return the socket address, or null if the address is invalid
+     */
+    private static SocketAddress parseAddress(String address) {
+        try {
+            return CommandServer.addressOf(address);
+        } catch (IllegalArgumentException e) {
+            logger.log(Level.SEVERE, "Invalid daemon address: {0}", e.getMessage());
+            return null;
+        }
+    }
+
     private static void loadLoggingProperties() {
         try {
             LogManager.getLogManager().readConfiguration(UserInputHandler.class.getResourceAsStream("/logging.properties"));
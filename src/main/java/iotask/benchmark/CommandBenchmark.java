@@ -0,0 +1,386 @@
+package main.java.iotask.benchmark;
+
+import main.java.iotask.command.CommandHandler;
+import main.java.iotask.command.impl.CopyFileCommandHandler;
+import main.java.iotask.command.impl.CreateFileCommandHandler;
+import main.java.iotask.command.impl.DeleteFileCommandHandler;
+import main.java.iotask.command.impl.UpdateFileCommandHandler;
+import main.java.iotask.executor.CommandExecutor;
+import main.java.iotask.io.Compression;
+import main.java.iotask.io.LineCounter;
+import main.java.iotask.logging.AsyncLogHandler;
+import main.java.iotask.parser.CopyCommandArgsParser;
+import main.java.iotask.parser.CreateCommandArgsParser;
+import main.java.iotask.parser.DeleteCommandArgsParser;
+import main.java.iotask.parser.UpdateCommandArgsParser;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import java.util.logging.FileHandler;
+import java.util.logging.Handler;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import java.util.logging.Level;
+import java.util.logging.SimpleFormatter;
+
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * A benchmark harness measuring the latency of every command handler and of {@link CommandExecutor#executeCommand(String)}
+ * on files of different sizes. The harness needs no dependencies and runs from the command line:
+ * <pre>
+ * java main.java.iotask.benchmark.CommandBenchmark [--sizes 1024,1048576,1073741824] [--line-length 80]
+ *                                                  [--warmup 5] [--iterations 20] [--dir benchmark-data] [--output benchmark.json]
+ *                                                  [--logging none|sync|async]
+ * </pre>
+ * The files are generated in a fresh directory created in {@code --dir}, and only that directory is deleted after the run.
+ * For every file size a file of lines of the given length is generated, every benchmark is warmed up and measured,
+ * and the results (average, minimum, median, 99th percentile and maximum latency in nanoseconds) are printed and exported as JSON,
+ * so results of different versions can be compared to catch regressions.
+ * The {@code .gzip} benchmarks repeat the copy, append and insert benchmarks on a gzip-compressed copy of the file,
+ * showing the CPU time compression costs against the disk bandwidth it saves.
+ * The {@code parse} benchmarks measure the argument parsers alone, apart from the file I/O of the handlers.
+ * By default logging is disabled; {@code --logging sync} or {@code --logging async} writes the INFO log of the commands to a file
+ * directly or through the {@link AsyncLogHandler}, so the logging overhead is the difference between the runs.
+ *
+ * @author Nikita Gubin
+ */
+public final class CommandBenchmark {
+
+    /**
+     * The text written by the benchmarked commands.
+     */
+    private static final String TEXT = "benchmark line";
+
+    /**
+     * The number of edits of the benchmarked patch file.
+     */
+    private static final int PATCH_EDITS = 500;
+
+    /**
+     * The settings of the run, keyed by the command-line option name.
+     */
+    private final Map<String, String> options;
+
+    /**
+     * The directory the benchmark directory is created in, given by {@code --dir}; it is never deleted.
+     */
+    private final Path baseDirectory;
+
+    /**
+     * The fresh directory the benchmark files are generated in, created in the base directory and deleted after the run.
+     */
+    private Path directory;
+
+    /**
+     * The results measured so far.
+     */
+    private final List<Result> results = new ArrayList<>();
+
+    private CommandBenchmark(Map<String, String> options) {
+        this.options = options;
+        this.baseDirectory = Paths.get(options.get("dir"));
+    }
+
+    /**
+     * Runs the benchmarks with the settings given by the command-line arguments.
+     *
+     * @param args the command-line arguments
+     * @throws Exception if a benchmark fails
+     * @throws IllegalArgumentException if the number of warmup or measured invocations is out of range
+     */
+    public static void main(String[] args) throws Exception {
+        LogManager.getLogManager().reset();
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("sizes", "1024,1048576,67108864");
+        options.put("line-length", "80");
+        options.put("warmup", "5");
+        options.put("iterations", "20");
+        options.put("dir", "benchmark-data");
+        options.put("output", "benchmark.json");
+        options.put("logging", "none");
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        if (Integer.parseInt(options.get("warmup")) < 0) {
+            throw new IllegalArgumentException("--warmup must not be negative: " + options.get("warmup"));
+        }
+        if (Integer.parseInt(options.get("iterations")) < 1) {
+            throw new IllegalArgumentException("--iterations must be at least 1: " + options.get("iterations"));
+        }
+
+        new CommandBenchmark(options).run();
+    }
+
+    private void run() throws Exception {
+        Files.createDirectories(baseDirectory);
+        directory = Files.createTempDirectory(baseDirectory, "bench");
+        Handler logHandler = configureLogging(options.get("logging"));
+        try {
+            for (String size : options.get("sizes").split(",")) {
+                runForSize(Long.parseLong(size.strip()));
+            }
+        } finally {
+            if (logHandler != null) {
+                logHandler.close();
+            }
+            deleteDirectory(directory);
+        }
+        export(Paths.get(options.get("output")));
+    }
+
+    /**
+     * Installs a handler writing the INFO log to a file in the benchmark directory.
+     *
+     * @param mode the logging mode: none, sync or async
+     * @return the installed handler, or null if logging is disabled
+     * @throws IOException if the log file cannot be opened
+     */
+    private Handler configureLogging(String mode) throws IOException {
+        if (mode.equals("none")) {
+            return null;
+        }
+        FileHandler fileHandler = new FileHandler(directory.resolve("benchmark.log").toString());
+        fileHandler.setFormatter(new SimpleFormatter());
+        Handler handler = mode.equals("async") ? new AsyncLogHandler(8192, fileHandler) : fileHandler;
+
+        Logger rootLogger = Logger.getLogger("");
+        rootLogger.setLevel(Level.INFO);
+        rootLogger.addHandler(handler);
+        return handler;
+    }
+
+    /**
+     * Runs every benchmark on a generated file of the specified size.
+     *
+     * @param size the size of the generated file in bytes
+     * @throws Exception if a benchmark fails
+     */
+    private void runForSize(long size) throws Exception {
+        int lineLength = Integer.parseInt(options.get("line-length"));
+        long lineCount = Math.max(1, size / lineLength);
+        Path source = directory.resolve("source.txt");
+        generate(source, size, lineLength);
+        String sourcePath = source.toString();
+        String targetPath = directory.resolve("target.txt").toString();
+        long middleLine = Math.max(1, lineCount / 2);
+
+        CommandHandler create = new CreateFileCommandHandler();
+        CommandHandler update = new UpdateFileCommandHandler();
+        CommandHandler copy = new CopyFileCommandHandler();
+        CommandHandler delete = new DeleteFileCommandHandler();
+        CommandExecutor executor = new CommandExecutor();
+        CreateCommandArgsParser createParser = new CreateCommandArgsParser();
+        UpdateCommandArgsParser updateParser = new UpdateCommandArgsParser();
+        CopyCommandArgsParser copyParser = new CopyCommandArgsParser();
+        DeleteCommandArgsParser deleteParser = new DeleteCommandArgsParser();
+
+        Path patch = directory.resolve("patch.txt");
+        writePatch(patch, lineCount);
+        String patchPath = patch.toString();
+
+        Path original = directory.resolve("original.txt");
+        Files.copy(source, original, REPLACE_EXISTING);
+        Runnable restore = () -> copyQuietly(original, Paths.get(targetPath));
+
+        Path compressed = directory.resolve("source.txt.gz");
+        Compression.transcode(source, compressed);
+        String compressedPath = compressed.toString();
+        String compressedTargetPath = directory.resolve("target.txt.gz").toString();
+        Runnable restoreCompressed = () -> copyQuietly(compressed, Paths.get(compressedTargetPath));
+        System.out.println("gzip: " + size + " bytes stored in " + Files.size(compressed) + " bytes");
+
+        measure("create", size, lineCount, null, () -> create.execute("-f \"" + targetPath + "\" \"" + TEXT + "\""));
+        measure("update.replace", size, lineCount, restore, () -> update.execute("-f \"" + targetPath + "\" \"" + TEXT + "\""));
+        measure("update.append", size, lineCount, restore, () -> update.execute("-f \"" + targetPath + "\" -a \"" + TEXT + "\""));
+        measure("update.insertLine", size, lineCount, restore, () -> update.execute("-f \"" + targetPath + "\" -nl " + middleLine + " \"" + TEXT + "\""));
+        measure("update.deleteLine", size, lineCount, restore, () -> update.execute("-f \"" + targetPath + "\" -dl " + middleLine));
+        measure("update.insertLine.mmap", size, lineCount, restore, () -> update.execute("--mmap -f \"" + targetPath + "\" -nl " + middleLine + " \"" + TEXT + "\""));
+        measure("update.deleteLine.mmap", size, lineCount, restore, () -> update.execute("--mmap -f \"" + targetPath + "\" -dl " + middleLine));
+        measure("update.patch", size, lineCount, restore, () -> update.execute("-f \"" + targetPath + "\" -p \"" + patchPath + "\""));
+        measure("update.regex", size, lineCount, restore, () -> update.execute("-f \"" + targetPath + "\" -r \"^x{8}\" \"" + TEXT + "\""));
+        measure("copy", size, lineCount, null, () -> copy.execute("\"" + sourcePath + "\" \"" + targetPath + "\""));
+        measure("copy.delta", size, lineCount, restore, () -> copy.execute("--engine delta \"" + sourcePath + "\" \"" + targetPath + "\""));
+        measure("delete", size, lineCount, restore, () -> delete.execute("-f \"" + targetPath + "\""));
+        measure("copy.gzip", size, lineCount, null, () -> copy.execute("\"" + sourcePath + "\" \"" + compressedTargetPath + "\""));
+        measure("copy.gunzip", size, lineCount, null, () -> copy.execute("\"" + compressedPath + "\" \"" + targetPath + "\""));
+        measure("update.append.gzip", size, lineCount, restoreCompressed, () -> update.execute("-f \"" + compressedTargetPath + "\" -a \"" + TEXT + "\""));
+        measure("update.insertLine.gzip", size, lineCount, restoreCompressed, () -> update.execute("-f \"" + compressedTargetPath + "\" -nl " + middleLine + " \"" + TEXT + "\""));
+        measure("parse.create", size, lineCount, null, () -> createParser.parse("-f \"" + targetPath + "\" \"" + TEXT + "\"").orElseThrow());
+        measure("parse.update", size, lineCount, null, () -> updateParser.parse("-f \"" + targetPath + "\" -nl " + middleLine + " \"" + TEXT + "\"").orElseThrow());
+        measure("parse.copy", size, lineCount, null, () -> copyParser.parse("\"" + sourcePath + "\" \"" + targetPath + "\"").orElseThrow());
+        measure("parse.delete", size, lineCount, null, () -> deleteParser.parse("-f \"" + targetPath + "\"").orElseThrow());
+        measure("stat.lineCounter", size, lineCount, null, () -> LineCounter.count(source));
+        measure("stat.readAllLines", size, lineCount, null, () -> Files.readAllLines(source).size());
+        measure("executor.append", size, lineCount, restore, () -> executor.executeCommand("update -f \"" + targetPath + "\" -a \"" + TEXT + "\""));
+    }
+
+    /**
+     * Warms up and measures the operation, running the untimed setup before every invocation.
+     *
+     * @param benchmark the name of the benchmark
+     * @param size      the size of the benchmark file in bytes
+     * @param lineCount the number of lines of the benchmark file
+     * @param setup     the untimed setup run before every invocation, or null
+     * @param operation the measured operation
+     * @throws Exception if the operation fails
+     */
+    private void measure(String benchmark, long size, long lineCount, Runnable setup, Operation operation) throws Exception {
+        int warmup = Integer.parseInt(options.get("warmup"));
+        int iterations = Integer.parseInt(options.get("iterations"));
+
+        long[] latencies = new long[iterations];
+        for (int i = -warmup; i < iterations; i++) {
+            if (setup != null) {
+                setup.run();
+            }
+            long start = System.nanoTime();
+            operation.run();
+            long elapsed = System.nanoTime() - start;
+            if (i >= 0) {
+                latencies[i] = elapsed;
+            }
+        }
+
+        Result result = Result.of(benchmark, size, lineCount, latencies);
+        results.add(result);
+        System.out.println(result);
+    }
+
+    /**
+     * Exports the results as a JSON array.
+     *
+     * @param output the path to the JSON file
+     * @throws IOException if an I/O error occurs writing the file
+     */
+    private void export(Path output) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(output))) {
+            writer.println("[");
+            for (int i = 0; i < results.size(); i++) {
+                writer.print("  " + results.get(i).toJson());
+                writer.println(i + 1 < results.size() ? "," : "");
+            }
+            writer.println("]");
+        }
+        System.out.println("Benchmark results exported to " + output.toAbsolutePath());
+    }
+
+    /**
+     * Generates a text file of the specified size made of lines of the specified length.
+     *
+     * @param path       the path to the file
+     * @param size       the size of the file in bytes
+     * @param lineLength the length of every line in bytes, including the line feed
+     * @throws IOException if an I/O error occurs writing the file
+     */
+    private static void generate(Path path, long size, int lineLength) throws IOException {
+        char[] line = new char[Math.max(1, lineLength)];
+        Arrays.fill(line, 'x');
+        line[line.length - 1] = '\n';
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.US_ASCII)) {
+            long written = 0;
+            while (written < size) {
+                int length = (int) Math.min(line.length, size - written);
+                writer.write(line, line.length - length, length);
+                written += length;
+            }
+        }
+    }
+
+    /**
+     * Writes a patch file of {@value #PATCH_EDITS} line insertions spread evenly over a file with the specified number of lines.
+     *
+     * @param path      the path to the patch file
+     * @param lineCount the number of lines of the patched file
+     * @throws IOException if an I/O error occurs writing the file
+     */
+    private static void writePatch(Path path, long lineCount) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(path))) {
+            for (int i = 0; i < PATCH_EDITS; i++) {
+                writer.println("-nl " + (1 + i * lineCount / PATCH_EDITS) + " \"" + TEXT + "\"");
+            }
+        }
+    }
+
+    private static void copyQuietly(Path source, Path target) {
+        try {
+            Files.copy(source, target, REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not restore the benchmark file", e);
+        }
+    }
+
+    private static void deleteDirectory(Path path) throws IOException {
+        try (Stream<Path> paths = Files.walk(path)) {
+            for (Path file : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * A benchmarked operation.
+     */
+    @FunctionalInterface
+    private interface Operation {
+
+        /**
+         * Runs the operation once.
+         *
+         * @throws Exception if the operation fails
+         */
+        void run() throws Exception;
+    }
+
+    /**
+     * The result of a benchmark.
+     *
+     * @param benchmark  the name of the benchmark
+     * @param size       the size of the benchmark file in bytes
+     * @param lineCount  the number of lines of the benchmark file
+     * @param iterations the number of measured invocations
+     * @param average    the average latency in nanoseconds
+     * @param min        the minimum latency in nanoseconds
+     * @param p50        the median latency in nanoseconds
+     * @param p99        the 99th percentile latency in nanoseconds
+     * @param max        the maximum latency in nanoseconds
+     */
+    private record Result(String benchmark, long size, long lineCount, int iterations, double average, long min, long p50, long p99, long max) {
+
+        static Result of(String benchmark, long size, long lineCount, long[] latencies) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            double average = Arrays.stream(sorted).average().orElse(0);
+            return new Result(benchmark, size, lineCount, sorted.length, average, sorted[0],
+                    sorted[(sorted.length - 1) / 2], sorted[(int) Math.ceil(sorted.length * 0.99) - 1], sorted[sorted.length - 1]);
+        }
+
+        String toJson() {
+            return String.format(Locale.ROOT,
+                    "{\"benchmark\": \"%s\", \"size\": %d, \"lineCount\": %d, \"iterations\": %d, \"averageNanos\": %.1f, \"minNanos\": %d, \"p50Nanos\": %d, \"p99Nanos\": %d, \"maxNanos\": %d}",
+                    benchmark, size, lineCount, iterations, average, min, p50, p99, max);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-24s size=%-12d lines=%-10d avg=%12.1f us  p50=%10.1f us  p99=%10.1f us",
+                    benchmark, size, lineCount, average / 1e3, p50 / 1e3, p99 / 1e3);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package main.java.iotask.command;
 
 import main.java.iotask.exception.CommandException;
 
+import java.util.List;
+
 /**
  * An interface representing a command that can be executed with the provided arguments.
  *
@@ -16,4 +18,16 @@ public interface CommandHandler {
      * @throws CommandException if the command execution fails
      */
     void execute(String arguments) throws CommandException;
+
+    /**
+     * Returns the paths of the files the command with the provided arguments reads or writes.
+     * Commands sharing a path must be executed in the order they were submitted. A directory path stands for every file inside it,
+     * so a command touching a whole tree returns the directory rather than the files it finds there.
+     *
+     * @param arguments the arguments for the command
+     * @return the paths of the files touched by the command, empty if the command touches no files or the arguments are invalid
+     */
+    default List<String> affectedPaths(String arguments) {
+        return List.of();
+    }
 }
@@ -11,5 +11,8 @@ public enum CommandName {
     CREATE,
     DELETE,
     UPDATE,
+    SEARCH,
+    STAT,
+    STATS,
     EXIT
 }
@@ -4,6 +4,9 @@ import main.java.iotask.command.impl.CopyFileCommandHandler;
 import main.java.iotask.command.impl.CreateFileCommandHandler;
 import main.java.iotask.command.impl.DeleteFileCommandHandler;
 import main.java.iotask.command.impl.UpdateFileCommandHandler;
+import main.java.iotask.command.impl.SearchFileCommandHandler;
+import main.java.iotask.command.impl.StatFileCommandHandler;
+import main.java.iotask.command.impl.StatsCommandHandler;
 import main.java.iotask.command.impl.ExitCommandHandler;
 import main.java.iotask.command.impl.NoSuchCommandHandler;
 
@@ -56,6 +59,9 @@ public class CommandProvider {
         repository.put(CommandName.CREATE.name(), new CreateFileCommandHandler());
         repository.put(CommandName.DELETE.name(), new DeleteFileCommandHandler());
         repository.put(CommandName.UPDATE.name(), new UpdateFileCommandHandler());
+        repository.put(CommandName.SEARCH.name(), new SearchFileCommandHandler());
+        repository.put(CommandName.STAT.name(), new StatFileCommandHandler());
+        repository.put(CommandName.STATS.name(), new StatsCommandHandler());
         repository.put(CommandName.EXIT.name(), new ExitCommandHandler());
 
         logger.log(Level.INFO, "CommandProvider initialized with command instances");
@@ -79,9 +85,9 @@ public class CommandProvider {
      * @see CommandHandler
      */
     public CommandHandler getCommand(String name) {
-        logger.log(Level.INFO, "Retrieving command from provider by name: " + name.toUpperCase());
-
         String commandName = name.toUpperCase();
+        logger.log(Level.INFO, "Retrieving command from provider by name: {0}", commandName);
+
         return repository.getOrDefault(commandName, noSuchCommandHandler);
     }
 }
@@ -1,30 +1,40 @@
 package main.java.iotask.command.impl;
 
 import main.java.iotask.command.CommandHandler;
+import main.java.iotask.config.ApplicationConfig;
 import main.java.iotask.exception.CommandException;
+import main.java.iotask.metrics.MetricsRegistry;
+import main.java.iotask.io.Compression;
+import main.java.iotask.io.CopyEngine;
+import main.java.iotask.io.FileVersions;
+import main.java.iotask.io.PathPattern;
+import main.java.iotask.io.TreeCopier;
 import main.java.iotask.parser.CopyCommandArgsParser;
-import main.java.iotask.validator.CommandArgsValidator;
 
-import java.io.FileReader;
-import java.io.BufferedReader;
-import java.io.FileWriter;
-import java.io.BufferedWriter;
 import java.io.IOException;
 
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.PatternSyntaxException;
 
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
-import static java.nio.file.StandardCopyOption.*;
-
 /**
  * This class represents a command for copying a file.
  * It implements the {@link CommandHandler} interface and provides the functionality to execute the copy command.
- * The class uses {@link CopyCommandArgsParser} for parsing the command arguments and {@link CommandArgsValidator} for validating the command format.
- * It provides two methods for copying a file: {@link CopyFileCommandHandler#execute(String)} method uses NIO {@link Files} class for copying, and {@link CopyFileCommandHandler#copyFileUsingBufferedIOStreams(String, String)} method uses IO classes {@link BufferedReader} and {@link BufferedWriter} for copying.
+ * The class uses {@link CopyCommandArgsParser} for validating the command format and parsing the command arguments in a single pass.
+ * The file is copied by the {@link CopyEngine} given by the --engine option, or chosen by the source file size if the option is absent.
+ * A destination ending with {@code '/'} copies a whole directory or the files matched by a glob pattern, such as {@code "logs/**}{@code /*.txt"},
+ * into the destination directory with a {@link TreeCopier}, skipping the files whose copies are up to date.
+ * A copy between a plain {@code .txt} file and a gzip-compressed {@code .txt.gz} file compresses or decompresses the content on the fly through {@link Compression#transcode(Path, Path)}
+ * instead of using an engine, while files of the same format are copied byte for byte.
+ * Copying a file onto itself, such as {@code "d/a.txt"} onto {@code "d/./a.txt"}, leaves the file untouched.
+ * The number of bytes copied, the elapsed time and the throughput of every copy are logged.
  *
  * @author Nikita Gubin
  */
@@ -38,7 +48,27 @@ public final class CopyFileCommandHandler implements CommandHandler {
     /**
      * The regular expression for validating the format of the copy command arguments.
      */
-    public static final String COPY_COMMAND_ARGS_REGEX = "^\"([^\"]+\\.txt)\" \"([^\"]+\\.txt)\"\\s*$";
+    public static final String COPY_COMMAND_ARGS_REGEX = "^(?:--engine (transfer|mmap|buffered|delta) )?(?:\"([^\"]+\\.txt(?:\\.gz)?)\" \"([^\"]+\\.txt(?:\\.gz)?)\"|\"([^\"]+)\" \"([^\"]+/)\")\\s*$";
+
+    /**
+     * The setting holding the source file size in bytes from which the {@link CopyEngine#MMAP} engine is chosen when no engine is given.
+     */
+    public static final String MMAP_THRESHOLD_SETTING = "iotask.copy.mmapThreshold";
+
+    /**
+     * The setting holding the maximum number of files copied at once by a tree copy.
+     */
+    public static final String PARALLELISM_SETTING = "iotask.copy.parallelism";
+
+    /**
+     * The default maximum number of files copied at once by a tree copy.
+     */
+    private static final int DEFAULT_PARALLELISM = 4;
+
+    /**
+     * The default source file size from which the {@link CopyEngine#MMAP} engine is chosen.
+     */
+    private static final long DEFAULT_MMAP_THRESHOLD = 1024L * 1024 * 1024;
 
     /**
      * The parser used to parse the copy command arguments.
@@ -63,29 +93,65 @@ public final class CopyFileCommandHandler implements CommandHandler {
      */
     @Override
     public void execute(String arguments) throws CommandException {
-        logger.log(Level.INFO, "Received copy command arguments: " + arguments);
+        logger.log(Level.INFO, "Received copy command arguments: {0}", arguments);
 
-        if (!CommandArgsValidator.validate(arguments, COPY_COMMAND_ARGS_REGEX)) {
-            logger.log(Level.SEVERE, "Invalid copy command format arguments: " + arguments);
-            throw new CommandException("Invalid copy command format. Use: copy \"sourcefile.txt\" \"destinationfile.txt\"");
+        Optional<CopyCommandArgsParser.Arguments> parsed = parser.parse(arguments);
+        if (parsed.isEmpty()) {
+            logger.log(Level.SEVERE, "Invalid copy command format arguments: {0}", arguments);
+            throw new CommandException("Invalid copy command format. Use: copy [--engine transfer|mmap|buffered|delta] \"sourcefile.txt[.gz]\" \"destinationfile.txt[.gz]\""
+                    + " or copy [--engine transfer|mmap|buffered|delta] \"sourcedirectory|glob\" \"destinationdirectory/\"");
         }
 
-        parser.parse(arguments);
-        String sourceFilePath = parser.getSourceFilePath();
-        String destinationFilePath = parser.getDestinationFilePath();
+        CopyCommandArgsParser.Arguments parsedArguments = parsed.get();
+        if (parsedArguments.tree()) {
+            copyTree(parsedArguments);
+            return;
+        }
+        String sourceFilePath = parsedArguments.sourceFilePath();
+        String destinationFilePath = parsedArguments.destinationFilePath();
+        String engineName = parsedArguments.engine();
 
         logger.log(Level.INFO, "Copy file command executing...");
         try {
             Path sourcePath = Paths.get(sourceFilePath);
 
             if (Files.notExists(sourcePath)) {
-                logger.log(Level.SEVERE, "Source file does not exist: " + sourceFilePath);
+                logger.log(Level.SEVERE, "Source file does not exist: {0}", sourceFilePath);
                 throw new CommandException("Source file does not exist: " + sourceFilePath + ". Please provide a valid source file.");
             }
 
             Path destinationPath = Paths.get(destinationFilePath);
-            Files.copy(sourcePath, destinationPath, REPLACE_EXISTING);
-            logger.log(Level.INFO, "File copied successfully from " + sourceFilePath + " to " + destinationFilePath);
+            if (Files.exists(destinationPath) && Files.isSameFile(sourcePath, destinationPath)) {
+                logger.log(Level.WARNING, "Source and destination are the same file, nothing to copy: {0}", sourceFilePath);
+                return;
+            }
+            if (Compression.of(sourcePath) != Compression.of(destinationPath)) {
+                transcode(sourcePath, destinationPath, engineName);
+                return;
+            }
+            CopyEngine engine = engineName != null ? CopyEngine.of(engineName) : CopyEngine.forSize(Files.size(sourcePath), ApplicationConfig.getLong(MMAP_THRESHOLD_SETTING, DEFAULT_MMAP_THRESHOLD));
+            if (engine == CopyEngine.BUFFERED && Compression.of(sourcePath) == Compression.GZIP) {
+                logger.log(Level.INFO, "The buffered engine copies text lines, copying the compressed file with the transfer engine: {0}", sourceFilePath);
+                engine = CopyEngine.TRANSFER;
+            }
+
+            long start = System.nanoTime();
+            long bytes;
+            try {
+                bytes = engine.copy(sourcePath, destinationPath);
+            } finally {
+                FileVersions.changed(destinationPath);
+            }
+            long elapsedNanos = System.nanoTime() - start;
+            MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
+            metricsRegistry.addBytesRead(Files.size(sourcePath));
+            metricsRegistry.addBytesWritten(bytes);
+            metricsRegistry.addFilesTouched(2);
+
+            logger.log(Level.INFO, "File copied successfully from {0} to {1}", new Object[]{sourceFilePath, destinationFilePath});
+            if (logger.isLoggable(Level.INFO)) {
+                logger.log(Level.INFO, String.format("Copied %d bytes with %s engine in %.3f ms (%.2f MB/s)", bytes, engine, elapsedNanos / 1e6, bytes / 1e6 / Math.max(elapsedNanos, 1) * 1e9));
+            }
         } catch (IOException e) {
             logger.log(Level.SEVERE, "Error occurred during file copy", e);
             throw new CommandException(e);
@@ -93,23 +159,106 @@ public final class CopyFileCommandHandler implements CommandHandler {
     }
 
     /**
-     * Copies a file using IO classes {@link BufferedReader} and {@link BufferedWriter}.
+     * Copies the file compressing or decompressing its content, as the source and destination file formats differ.
      *
-     * @param sourceFilePath      the path of the source file
-     * @param destinationFilePath the path of the destination file
-     * @throws CommandException if an IO errors occurs during the file copy
-     * @see IOException
+     * @param sourcePath      the path to the source file
+     * @param destinationPath the path to the destination file
+     * @param engineName      the engine given by the --engine option, which does not apply, or null
+     * @throws IOException if an I/O error occurs reading or writing the files
+     * @see Compression
      */
-    private void copyFileUsingBufferedIOStreams(String sourceFilePath, String destinationFilePath) throws CommandException {
-        try (BufferedReader reader = new BufferedReader(new FileReader(sourceFilePath)); BufferedWriter writer = new BufferedWriter(new FileWriter(destinationFilePath))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                writer.write(line);
-                writer.newLine();
+    private void transcode(Path sourcePath, Path destinationPath, String engineName) throws IOException {
+        if (engineName != null) {
+            logger.log(Level.INFO, "The {0} engine does not apply when compressing or decompressing, ignoring it", engineName);
+        }
+
+        long start = System.nanoTime();
+        long bytes;
+        try {
+            bytes = Compression.transcode(sourcePath, destinationPath);
+        } finally {
+            FileVersions.changed(destinationPath);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        long sourceBytes = Files.size(sourcePath);
+        MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
+        metricsRegistry.addBytesRead(sourceBytes);
+        metricsRegistry.addBytesWritten(bytes);
+        metricsRegistry.addFilesTouched(2);
+
+        logger.log(Level.INFO, "File copied successfully from {0} to {1}", new Object[]{sourcePath, destinationPath});
+        if (logger.isLoggable(Level.INFO)) {
+            logger.log(Level.INFO, String.format("Transcoded %d bytes to %d bytes (%s to %s) in %.3f ms", sourceBytes, bytes,
+                    Compression.of(sourcePath), Compression.of(destinationPath), elapsedNanos / 1e6));
+        }
+    }
+
+    /**
+     * Copies the directory or the files matched by the glob pattern into the destination directory.
+     *
+     * @param arguments the parsed arguments of a tree copy
+     * @throws CommandException if the source is invalid or does not exist, or an io error occurs walking the source tree
+     */
+    private void copyTree(CopyCommandArgsParser.Arguments arguments) throws CommandException {
+        String source = arguments.sourceFilePath();
+        String destination = arguments.destinationFilePath();
+
+        logger.log(Level.INFO, "Copy tree command executing...");
+        try {
+            PathPattern pattern = PathPattern.of(source);
+            if (Files.notExists(pattern.base())) {
+                logger.log(Level.SEVERE, "Source does not exist: {0}", pattern.base());
+                throw new CommandException("Source does not exist: " + pattern.base() + ". Please provide a valid source directory or pattern.");
+            }
+
+            CopyEngine engine = arguments.engine() != null ? CopyEngine.of(arguments.engine()) : null;
+            TreeCopier copier = new TreeCopier(engine, ApplicationConfig.getLong(MMAP_THRESHOLD_SETTING, DEFAULT_MMAP_THRESHOLD), ApplicationConfig.getInt(PARALLELISM_SETTING, DEFAULT_PARALLELISM));
+
+            long start = System.nanoTime();
+            TreeCopier.Result result = copier.copy(pattern, Paths.get(destination));
+            long elapsedNanos = System.nanoTime() - start;
+            MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
+            metricsRegistry.addBytesRead(result.bytes());
+            metricsRegistry.addBytesWritten(result.bytes());
+            metricsRegistry.addFilesTouched(2 * result.copied());
+
+            if (logger.isLoggable(Level.INFO)) {
+                logger.log(Level.INFO, String.format("Copied %d files (%d bytes) from %s to %s, skipped %d unchanged files in %.3f ms (%.2f MB/s)", result.copied(), result.bytes(), source, destination,
+                        result.skipped(), elapsedNanos / 1e6, result.bytes() / 1e6 / Math.max(elapsedNanos, 1) * 1e9));
             }
+            if (result.failed() > 0) {
+                throw new CommandException("Failed to copy " + result.failed() + " of " + (result.copied() + result.skipped() + result.failed()) + " files from " + source + " to " + destination);
+            }
+        } catch (InvalidPathException | PatternSyntaxException e) {
+            logger.log(Level.SEVERE, "Invalid copy source: {0}", source);
+            throw new CommandException("Invalid copy source: " + source + ". " + e.getMessage());
         } catch (IOException e) {
-            logger.log(Level.SEVERE, "Error occurred during file copy using buffered IO streams", e);
+            logger.log(Level.SEVERE, "Error occurred during tree copy", e);
             throw new CommandException(e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the paths of the files the copy command with the provided arguments touches.
+     *
+     * @param arguments the arguments for the copy command
+     * @return the paths of the files touched by the command, the base directory of the source and the destination directory for a tree copy,
+     * which stand for every file inside them, empty if the arguments are invalid
+     */
+    @Override
+    public List<String> affectedPaths(String arguments) {
+        return parser.parse(arguments)
+                .map(parsedArguments -> parsedArguments.tree()
+                        ? List.of(baseOf(parsedArguments.sourceFilePath()), parsedArguments.destinationFilePath())
+                        : List.of(parsedArguments.sourceFilePath(), parsedArguments.destinationFilePath()))
+                .orElse(List.of());
+    }
+
+    private static String baseOf(String source) {
+        try {
+            return PathPattern.of(source).base().toString();
+        } catch (InvalidPathException | PatternSyntaxException e) {
+            return source;
+        }
+    }
+}
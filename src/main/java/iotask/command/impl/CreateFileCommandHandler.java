@@ -1,15 +1,28 @@
 package main.java.iotask.command.impl;
 
 import main.java.iotask.command.CommandHandler;
+import main.java.iotask.config.ApplicationConfig;
 import main.java.iotask.exception.CommandException;
+import main.java.iotask.io.BulkFileCreator;
+import main.java.iotask.io.Compression;
+import main.java.iotask.io.FileVersions;
+import main.java.iotask.metrics.MetricsRegistry;
 import main.java.iotask.parser.CreateCommandArgsParser;
-import main.java.iotask.validator.CommandArgsValidator;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.LongStream;
 
 import java.util.logging.Logger;
 import java.util.logging.Level;
@@ -19,7 +32,11 @@ import static java.nio.file.StandardOpenOption.*;
 /**
  * This class represents a command for creating a new file with optional initial content.
  * It implements the {@link CommandHandler} interface and provides the functionality to execute the create command.
- * The class uses {@link CreateCommandArgsParser} for parsing the command arguments and {@link CommandArgsValidator} for validating the command format.
+ * The class uses {@link CreateCommandArgsParser} for validating the command format and parsing the command arguments in a single pass.
+ * A file path holding a {@code {from..to}} range, such as {@code "out/file_{1..1000}.txt"}, creates a file for every number of the range,
+ * and the -m option creates the files listed in a manifest, one {@code -f "path/to/file.txt" ["text"]} per line.
+ * Such bulk creations are executed by a {@link BulkFileCreator} and log the number of created files per second.
+ * A file path ending with {@code .txt.gz} creates a gzip-compressed file, see {@link Compression}.
  *
  * @author Nikita Gubin
  */
@@ -33,7 +50,27 @@ public final class CreateFileCommandHandler implements CommandHandler {
     /**
      * The regular expression for validating the format of the create command arguments.
      */
-    public static final String CREATE_COMMAND_ARGS_REGEX = "^-f \"([^\"]+\\.txt)\"( \"([^\"]+)\")?\\s*$";
+    public static final String CREATE_COMMAND_ARGS_REGEX = "^(?:-f \"([^\"]+\\.txt(?:\\.gz)?)\"( \"([^\"]+)\")?|-m \"([^\"]+)\")\\s*$";
+
+    /**
+     * The setting holding the maximum number of files created at once by a bulk creation.
+     */
+    public static final String PARALLELISM_SETTING = "iotask.create.parallelism";
+
+    /**
+     * The default maximum number of files created at once by a bulk creation.
+     */
+    private static final int DEFAULT_PARALLELISM = 4;
+
+    /**
+     * The pattern of the numeric range of a templated file path.
+     */
+    private static final Pattern RANGE_PATTERN = Pattern.compile("\\{(\\d{1,18})\\.\\.(\\d{1,18})}");
+
+    /**
+     * The prefix of the comment lines of a manifest.
+     */
+    private static final String MANIFEST_COMMENT_PREFIX = "#";
 
     /**
      * The parser used to parse the create command arguments.
@@ -58,30 +95,161 @@ public final class CreateFileCommandHandler implements CommandHandler {
      */
     @Override
     public void execute(String arguments) throws CommandException {
-        logger.log(Level.INFO, "Received create file command arguments: " + arguments);
+        logger.log(Level.INFO, "Received create file command arguments: {0}", arguments);
 
-        if (!CommandArgsValidator.validate(arguments, CREATE_COMMAND_ARGS_REGEX)) {
-            logger.log(Level.SEVERE, "Invalid create command format arguments: " + arguments);
-            throw new CommandException("Invalid create command format. Use: create -f \"path/to/yourfile.txt\" [\"your text content\"]");
+        Optional<CreateCommandArgsParser.Arguments> parsed = parser.parse(arguments);
+        if (parsed.isEmpty()) {
+            logger.log(Level.SEVERE, "Invalid create command format arguments: {0}", arguments);
+            throw new CommandException("Invalid create command format. Use: create -f \"path/to/yourfile.txt[.gz]\" [\"your text content\"],"
+                    + " create -f \"path/to/file_{1..100}.txt\" [\"your text content\"] or create -m \"path/to/manifest\"");
         }
 
-        parser.parse(arguments);
-        String filePath = parser.getFilePath();
-        String text = parser.getText();
+        CreateCommandArgsParser.Arguments parsedArguments = parsed.get();
+        String filePath = parsedArguments.filePath();
+        String text = parsedArguments.text();
+        if (parsedArguments.manifestPath() != null) {
+            createBulk(readManifest(Paths.get(parsedArguments.manifestPath())), parsedArguments.manifestPath());
+            return;
+        }
+        Matcher range = RANGE_PATTERN.matcher(filePath);
+        if (range.find()) {
+            createBulk(expandTemplate(filePath, range, text), filePath);
+            return;
+        }
 
         logger.log(Level.INFO, "Create file command executing...");
         try {
             Path path = Paths.get(filePath);
             Files.createDirectories(path.getParent());
-            try (BufferedWriter writer = Files.newBufferedWriter(path, CREATE, TRUNCATE_EXISTING)) {
+            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(Compression.of(path).newOutputStream(path, CREATE, TRUNCATE_EXISTING, WRITE), StandardCharsets.UTF_8))) {
                 if (text != null) {
                     writer.write(text);
                 }
+            } finally {
+                FileVersions.changed(path);
             }
-            logger.log(Level.INFO, "File created successfully at: " + filePath);
+            MetricsRegistry.getInstance().addBytesWritten(Files.size(path));
+            MetricsRegistry.getInstance().addFilesTouched(1);
+            logger.log(Level.INFO, "File created successfully at: {0}", filePath);
         } catch (IOException e) {
             logger.log(Level.SEVERE, "Error occurred during file creation", e);
             throw new CommandException(e);
         }
     }
+
+    /**
+     * Creates the files of a templated path or a manifest and logs the throughput.
+     *
+     * @param files  the files to create
+     * @param source the templated path or the manifest path, for reporting
+     * @throws CommandException if any file could not be created
+     */
+    private void createBulk(Iterable<BulkFileCreator.FileSpec> files, String source) throws CommandException {
+        logger.log(Level.INFO, "Bulk create command executing...");
+
+        long start = System.nanoTime();
+        BulkFileCreator.Result result = new BulkFileCreator(ApplicationConfig.getInt(PARALLELISM_SETTING, DEFAULT_PARALLELISM)).create(files);
+        long elapsedNanos = System.nanoTime() - start;
+        MetricsRegistry.getInstance().addBytesWritten(result.bytes());
+        MetricsRegistry.getInstance().addFilesTouched(result.created());
+
+        if (logger.isLoggable(Level.INFO)) {
+            logger.log(Level.INFO, String.format("Created %d files (%d bytes) from %s in %.3f ms (%.0f files/s)", result.created(), result.bytes(), source,
+                    elapsedNanos / 1e6, result.created() / (Math.max(elapsedNanos, 1) / 1e9)));
+        }
+        if (result.failed() > 0) {
+            throw new CommandException("Failed to create " + result.failed() + " of " + (result.created() + result.failed()) + " files from " + source);
+        }
+    }
+
+    /**
+     * Expands the templated path into a file for every number of its range, in ascending order.
+     *
+     * @param filePath the templated path
+     * @param range    the matcher that has found the range in the path
+     * @param text     the text content of every file, or null
+     * @return the files of the template, generated lazily
+     * @throws CommandException if the range is empty or the path holds more than one range
+     */
+    private static Iterable<BulkFileCreator.FileSpec> expandTemplate(String filePath, Matcher range, String text) throws CommandException {
+        long from = Long.parseLong(range.group(1));
+        long to = Long.parseLong(range.group(2));
+        String prefix = filePath.substring(0, range.start());
+        String suffix = filePath.substring(range.end());
+        if (from > to || RANGE_PATTERN.matcher(suffix).find()) {
+            logger.log(Level.SEVERE, "Invalid file path template: {0}", filePath);
+            throw new CommandException("Invalid file path template: " + filePath + ". Use a single ascending range such as {1..100}.");
+        }
+        return () -> LongStream.rangeClosed(from, to)
+                .mapToObj(number -> new BulkFileCreator.FileSpec(Paths.get(prefix + number + suffix), text))
+                .iterator();
+    }
+
+    /**
+     * Reads the files listed in the manifest. Every line holds the arguments of a single file creation, blank lines and lines starting with {@code #} are skipped.
+     *
+     * @param manifestPath the path to the manifest
+     * @return the files of the manifest
+     * @throws CommandException if the manifest does not exist, cannot be read or holds an invalid line
+     */
+    private List<BulkFileCreator.FileSpec> readManifest(Path manifestPath) throws CommandException {
+        if (Files.notExists(manifestPath)) {
+            logger.log(Level.SEVERE, "Manifest does not exist: {0}", manifestPath);
+            throw new CommandException("Manifest does not exist: " + manifestPath + ". Please check the file path and try again.");
+        }
+
+        List<BulkFileCreator.FileSpec> files = new ArrayList<>();
+        try {
+            List<String> manifestLines = Files.readAllLines(manifestPath);
+            for (int i = 0; i < manifestLines.size(); i++) {
+                String manifestLine = manifestLines.get(i).strip();
+                if (manifestLine.isEmpty() || manifestLine.startsWith(MANIFEST_COMMENT_PREFIX)) {
+                    continue;
+                }
+                Optional<CreateCommandArgsParser.Arguments> entry = parser.parse(manifestLine).filter(parsedEntry -> parsedEntry.filePath() != null);
+                if (entry.isEmpty()) {
+                    logger.log(Level.SEVERE, "Invalid manifest line {0,number,#}: {1}", new Object[]{i + 1, manifestLine});
+                    throw new CommandException("Invalid entry at line " + (i + 1) + " of the manifest. Use: -f \"path/to/yourfile.txt\" [\"your text content\"]");
+                }
+                files.add(new BulkFileCreator.FileSpec(Paths.get(entry.get().filePath()), entry.get().text()));
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error occurred reading the manifest", e);
+            throw new CommandException(e);
+        }
+        return files;
+    }
+
+    /**
+     * Returns the paths of the files the create command with the provided arguments touches.
+     * A templated path touches the directory holding every file of the range, the deepest directory without the range in its path.
+     * The files listed by a manifest are not known until the manifest is read when the command is executed, so a manifest creation returns
+     * the manifest and the filesystem roots, which orders it against every other command.
+     *
+     * @param arguments the arguments for the create command
+     * @return the paths of the files touched by the command, empty if the arguments are invalid
+     */
+    @Override
+    public List<String> affectedPaths(String arguments) {
+        return parser.parse(arguments)
+                .map(CreateFileCommandHandler::affectedPaths)
+                .orElse(List.of());
+    }
+
+    private static List<String> affectedPaths(CreateCommandArgsParser.Arguments parsedArguments) {
+        if (parsedArguments.manifestPath() != null) {
+            List<String> paths = new ArrayList<>();
+            paths.add(parsedArguments.manifestPath());
+            FileSystems.getDefault().getRootDirectories().forEach(root -> paths.add(root.toString()));
+            return paths;
+        }
+
+        String filePath = parsedArguments.filePath();
+        Matcher range = RANGE_PATTERN.matcher(filePath);
+        if (!range.find()) {
+            return List.of(filePath);
+        }
+        int separator = filePath.lastIndexOf('/', range.start());
+        return List.of(separator > 0 ? filePath.substring(0, separator) : separator == 0 ? "/" : "");
+    }
 }
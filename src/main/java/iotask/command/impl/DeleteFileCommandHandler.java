@@ -1,14 +1,22 @@
 package main.java.iotask.command.impl;
 
 import main.java.iotask.command.CommandHandler;
+import main.java.iotask.config.ApplicationConfig;
 import main.java.iotask.exception.CommandException;
+import main.java.iotask.io.FileVersions;
+import main.java.iotask.io.PathPattern;
+import main.java.iotask.io.TreeDeleter;
+import main.java.iotask.metrics.MetricsRegistry;
 import main.java.iotask.parser.DeleteCommandArgsParser;
-import main.java.iotask.validator.CommandArgsValidator;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.PatternSyntaxException;
 
 import java.util.logging.Logger;
 import java.util.logging.Level;
@@ -16,7 +24,11 @@ import java.util.logging.Level;
 /**
  * This class represents a command for deleting a file.
  * It implements the {@link CommandHandler} interface and provides the functionality to execute the delete command.
- * The class uses {@link DeleteCommandArgsParser} for parsing the command arguments and {@link CommandArgsValidator} for validating the command format.
+ * The class uses {@link DeleteCommandArgsParser} for validating the command format and parsing the command arguments in a single pass.
+ * The -r option deletes a whole directory, or the files matched by a glob pattern such as {@code "tmp/**}{@code /*.txt"}, with a {@link TreeDeleter}
+ * and logs the number of deleted files and directories and the throughput.
+ * A tree deletion refuses a path that is not a directory, so it cannot delete a single file the -f option would reject,
+ * and refuses a filesystem root, the current directory and its ancestors.
  *
  * @author Nikita Gubin
  */
@@ -30,7 +42,17 @@ public final class DeleteFileCommandHandler implements CommandHandler {
     /**
      * The regular expression for validating the format of the delete command arguments.
      */
-    public static final String DELETE_COMMAND_ARGS_REGEX = "^-f \"([^\"]+\\.txt)\"\\s*$";
+    public static final String DELETE_COMMAND_ARGS_REGEX = "^(?:-f \"([^\"]+\\.txt(?:\\.gz)?)\"|-r \"([^\"]+)\")\\s*$";
+
+    /**
+     * The setting holding the maximum number of files deleted at once by a tree deletion.
+     */
+    public static final String PARALLELISM_SETTING = "iotask.delete.parallelism";
+
+    /**
+     * The default maximum number of files deleted at once by a tree deletion.
+     */
+    private static final int DEFAULT_PARALLELISM = 4;
 
     /**
      * The parser used to parse the delete command arguments.
@@ -55,24 +77,118 @@ public final class DeleteFileCommandHandler implements CommandHandler {
      */
     @Override
     public void execute(String arguments) throws CommandException {
-        logger.log(Level.INFO, "Received delete command arguments: " + arguments);
+        logger.log(Level.INFO, "Received delete command arguments: {0}", arguments);
 
-        if (!CommandArgsValidator.validate(arguments, DELETE_COMMAND_ARGS_REGEX)) {
-            logger.log(Level.SEVERE, "Invalid delete command format arguments: " + arguments);
-            throw new CommandException("Invalid delete command format.Use: delete -f \"path/to/yourfile.txt\"");
+        Optional<DeleteCommandArgsParser.Arguments> parsed = parser.parse(arguments);
+        if (parsed.isEmpty()) {
+            logger.log(Level.SEVERE, "Invalid delete command format arguments: {0}", arguments);
+            throw new CommandException("Invalid delete command format.Use: delete -f \"path/to/yourfile.txt[.gz]\" or delete -r \"path/to/directory|glob\"");
         }
 
-        parser.parse(arguments);
-        String filePath = parser.getFilePath();
+        DeleteCommandArgsParser.Arguments parsedArguments = parsed.get();
+        String filePath = parsedArguments.filePath();
+        if (parsedArguments.tree()) {
+            deleteTree(filePath);
+            return;
+        }
 
         logger.log(Level.INFO, "Delete file command executing...");
         try {
             Path path = Paths.get(filePath);
-            Files.deleteIfExists(path);
-            logger.log(Level.INFO, "File deleted successfully: " + filePath);
+            if (Files.deleteIfExists(path)) {
+                FileVersions.changed(path);
+                MetricsRegistry.getInstance().addFilesTouched(1);
+            }
+            logger.log(Level.INFO, "File deleted successfully: {0}", filePath);
         } catch (IOException e) {
             logger.log(Level.SEVERE, "Error occurred during file deletion", e);
             throw new CommandException(e);
         }
     }
+
+    /**
+     * Deletes the directory or the files matched by the glob pattern, together with the directories left empty.
+     *
+     * @param source the directory or the glob pattern
+     * @throws CommandException if the source is invalid or does not exist, or an io error occurs walking the tree
+     */
+    private void deleteTree(String source) throws CommandException {
+        logger.log(Level.INFO, "Delete tree command executing...");
+        try {
+            PathPattern pattern = PathPattern.of(source);
+            if (Files.notExists(pattern.base())) {
+                logger.log(Level.SEVERE, "Directory does not exist: {0}", pattern.base());
+                throw new CommandException("Directory does not exist: " + pattern.base() + ". Please provide a valid directory or pattern.");
+            }
+            checkDeletable(pattern);
+
+            long start = System.nanoTime();
+            TreeDeleter.Result result = new TreeDeleter(ApplicationConfig.getInt(PARALLELISM_SETTING, DEFAULT_PARALLELISM)).delete(pattern);
+            long elapsedNanos = System.nanoTime() - start;
+            MetricsRegistry.getInstance().addFilesTouched(result.files());
+
+            if (logger.isLoggable(Level.INFO)) {
+                logger.log(Level.INFO, String.format("Deleted %d files (%d bytes) and %d directories from %s in %.3f ms (%.0f files/s)", result.files(), result.bytes(), result.directories(), source,
+                        elapsedNanos / 1e6, result.files() / (Math.max(elapsedNanos, 1) / 1e9)));
+            }
+            if (result.failed() > 0) {
+                throw new CommandException("Failed to delete " + result.failed() + " of " + (result.files() + result.failed()) + " files from " + source);
+            }
+        } catch (InvalidPathException | PatternSyntaxException e) {
+            logger.log(Level.SEVERE, "Invalid delete source: {0}", source);
+            throw new CommandException("Invalid delete source: " + source + ". " + e.getMessage());
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error occurred during tree deletion", e);
+            throw new CommandException(e);
+        }
+    }
+
+    /**
+     * Checks that the tree deletion cannot remove more than the user asked for.
+     * A pattern without a glob must name a directory which neither is a filesystem root nor holds the current directory,
+     * and the base directory of a glob must not be a filesystem root. The paths are compared with symbolic links resolved.
+     *
+     * @param pattern the directory or the glob pattern to delete
+     * @throws CommandException if the deletion is refused
+     * @throws IOException      if an I/O error occurs resolving the paths
+     */
+    private static void checkDeletable(PathPattern pattern) throws CommandException, IOException {
+        Path base = pattern.base().toRealPath();
+        if (base.getParent() == null) {
+            logger.log(Level.SEVERE, "Refused to delete a filesystem root: {0}", base);
+            throw new CommandException("Refused to delete a filesystem root: " + base);
+        }
+        if (pattern.isGlob()) {
+            return;
+        }
+        if (!Files.isDirectory(base)) {
+            logger.log(Level.SEVERE, "Not a directory: {0}", pattern.base());
+            throw new CommandException("Not a directory: " + pattern.base() + ". Use: delete -f \"path/to/yourfile.txt[.gz]\" to delete a single file.");
+        }
+        if (Paths.get("").toRealPath().startsWith(base)) {
+            logger.log(Level.SEVERE, "Refused to delete the current directory or its ancestor: {0}", base);
+            throw new CommandException("Refused to delete the current directory or its ancestor: " + base);
+        }
+    }
+
+    /**
+     * Returns the paths of the files the delete command with the provided arguments touches.
+     *
+     * @param arguments the arguments for the delete command
+     * @return the paths of the files touched by the command, the base directory for a tree deletion, empty if the arguments are invalid
+     */
+    @Override
+    public List<String> affectedPaths(String arguments) {
+        return parser.parse(arguments)
+                .map(parsedArguments -> List.of(parsedArguments.tree() ? baseOf(parsedArguments.filePath()) : parsedArguments.filePath()))
+                .orElse(List.of());
+    }
+
+    private static String baseOf(String source) {
+        try {
+            return PathPattern.of(source).base().toString();
+        } catch (InvalidPathException | PatternSyntaxException e) {
+            return source;
+        }
+    }
 }
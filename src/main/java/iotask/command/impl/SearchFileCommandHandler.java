@@ -0,0 +1,153 @@
+package main.java.iotask.command.impl;
+
+import main.java.iotask.command.CommandHandler;
+import main.java.iotask.config.ApplicationConfig;
+import main.java.iotask.exception.CommandException;
+import main.java.iotask.io.ChunkedSearcher;
+import main.java.iotask.metrics.MetricsRegistry;
+import main.java.iotask.parser.SearchCommandArgsParser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+/**
+ * This class represents a command for finding the lines of a file holding a text.
+ * It implements the {@link CommandHandler} interface and provides the functionality to execute the search command.
+ * The class uses {@link SearchCommandArgsParser} for validating the command format and parsing the command arguments in a single pass.
+ * The file is scanned in parallel by a {@link ChunkedSearcher}, and every matching line is printed with its line number and the byte offset of the match,
+ * ready to be passed to {@code update -nl} or {@code update -dl}.
+ *
+ * @author Nikita Gubin
+ */
+public final class SearchFileCommandHandler implements CommandHandler {
+
+    /**
+     * The logger for {@link SearchFileCommandHandler} class.
+     */
+    private static final Logger logger = Logger.getLogger(SearchFileCommandHandler.class.getName());
+
+    /**
+     * The regular expression for validating the format of the search command arguments.
+     */
+    public static final String SEARCH_COMMAND_ARGS_REGEX = "^-f \"([^\"]+\\.txt)\" \"([^\"]+)\"\\s*$";
+
+    /**
+     * The setting holding the number of threads scanning a file.
+     */
+    public static final String PARALLELISM_SETTING = "iotask.search.parallelism";
+
+    /**
+     * The setting holding the maximum number of matching lines printed.
+     */
+    public static final String MAX_RESULTS_SETTING = "iotask.search.maxResults";
+
+    /**
+     * The default maximum number of matching lines printed.
+     */
+    private static final int DEFAULT_MAX_RESULTS = 1000;
+
+    /**
+     * The maximum number of bytes of a matching line printed.
+     */
+    private static final int MAX_LINE_LENGTH = 1024;
+
+    /**
+     * The parser used to parse the search command arguments.
+     *
+     * @see SearchCommandArgsParser
+     */
+    private final SearchCommandArgsParser parser;
+
+    /**
+     * The searcher scanning the files.
+     *
+     * @see ChunkedSearcher
+     */
+    private final ChunkedSearcher searcher;
+
+    /**
+     * Constructs a new {@link SearchFileCommandHandler} with a {@link SearchCommandArgsParser} and a {@link ChunkedSearcher} on its own pool.
+     */
+    public SearchFileCommandHandler() {
+        parser = new SearchCommandArgsParser();
+        searcher = new ChunkedSearcher(new ForkJoinPool(ApplicationConfig.getInt(PARALLELISM_SETTING, Runtime.getRuntime().availableProcessors())),
+                ApplicationConfig.getInt(MAX_RESULTS_SETTING, DEFAULT_MAX_RESULTS));
+    }
+
+    /**
+     * Executes the search command with the provided arguments.
+     *
+     * @param arguments the arguments for the search command
+     * @throws CommandException if the command format is invalid, the file does not exist or an io errors occurs during file reading.
+     * @see IOException
+     */
+    @Override
+    public void execute(String arguments) throws CommandException {
+        logger.log(Level.INFO, "Received search command arguments: {0}", arguments);
+
+        Optional<SearchCommandArgsParser.Arguments> parsed = parser.parse(arguments);
+        if (parsed.isEmpty()) {
+            logger.log(Level.SEVERE, "Invalid search command format arguments: {0}", arguments);
+            throw new CommandException("Invalid search command format. Use: search -f \"path/to/yourfile.txt\" \"text to find\"");
+        }
+
+        SearchCommandArgsParser.Arguments parsedArguments = parsed.get();
+        String filePath = parsedArguments.filePath();
+
+        logger.log(Level.INFO, "Search command executing...");
+        try {
+            Path path = Paths.get(filePath);
+            if (Files.notExists(path)) {
+                logger.log(Level.SEVERE, "File does not exist: {0}", filePath);
+                throw new CommandException("File does not exist: " + filePath + ". Please check the file path and try again.");
+            }
+
+            long start = System.nanoTime();
+            ChunkedSearcher.Result result = searcher.search(path, parsedArguments.pattern());
+            long elapsedNanos = System.nanoTime() - start;
+            long size = Files.size(path);
+            MetricsRegistry.getInstance().addBytesRead(size);
+
+            StringBuilder report = new StringBuilder();
+            List<String> lines = ChunkedSearcher.readLines(path, result.matches(), MAX_LINE_LENGTH);
+            for (int i = 0; i < lines.size(); i++) {
+                ChunkedSearcher.Match match = result.matches().get(i);
+                report.append(match.lineNumber()).append(':').append(match.offset()).append(": ")
+                        .append(lines.get(i)).append(System.lineSeparator());
+            }
+            report.append(result.matchCount()).append(" matching lines in ").append(filePath);
+            if (result.matchCount() > result.matches().size()) {
+                report.append(" (first ").append(result.matches().size()).append(" shown)");
+            }
+            System.out.println(report);
+
+            if (logger.isLoggable(Level.INFO)) {
+                logger.log(Level.INFO, String.format("Searched %d bytes in %.3f ms (%.2f MB/s)", size, elapsedNanos / 1e6, size / 1e6 / Math.max(elapsedNanos, 1) * 1e9));
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error occurred during file search", e);
+            throw new CommandException(e);
+        }
+    }
+
+    /**
+     * Returns the paths of the files the search command with the provided arguments touches.
+     *
+     * @param arguments the arguments for the search command
+     * @return the paths of the files touched by the command, empty if the arguments are invalid
+     */
+    @Override
+    public List<String> affectedPaths(String arguments) {
+        return parser.parse(arguments)
+                .map(parsedArguments -> List.of(parsedArguments.filePath()))
+                .orElse(List.of());
+    }
+}
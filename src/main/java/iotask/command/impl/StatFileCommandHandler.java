@@ -0,0 +1,104 @@
+package main.java.iotask.command.impl;
+
+import main.java.iotask.command.CommandHandler;
+import main.java.iotask.exception.CommandException;
+import main.java.iotask.io.LineCounter;
+import main.java.iotask.metrics.MetricsRegistry;
+import main.java.iotask.parser.StatCommandArgsParser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+/**
+ * This class represents a command for displaying the size and the number of lines of a file.
+ * It implements the {@link CommandHandler} interface and provides the functionality to execute the stat command.
+ * The class uses {@link StatCommandArgsParser} for validating the command format and parsing the command arguments in a single pass.
+ * The lines are counted by the {@link LineCounter} straight from the mapped file, so the valid line numbers for {@code update -nl} and {@code update -dl}
+ * are known without decoding the file.
+ *
+ * @author Nikita Gubin
+ */
+public final class StatFileCommandHandler implements CommandHandler {
+
+    /**
+     * The logger for {@link StatFileCommandHandler} class.
+     */
+    private static final Logger logger = Logger.getLogger(StatFileCommandHandler.class.getName());
+
+    /**
+     * The regular expression for validating the format of the stat command arguments.
+     */
+    public static final String STAT_COMMAND_ARGS_REGEX = "^-f \"([^\"]+\\.txt)\"\\s*$";
+
+    /**
+     * The parser used to parse the stat command arguments.
+     *
+     * @see StatCommandArgsParser
+     */
+    private final StatCommandArgsParser parser;
+
+    /**
+     * Constructs a new {@link StatFileCommandHandler} with a {@link StatCommandArgsParser}.
+     */
+    public StatFileCommandHandler() {
+        parser = new StatCommandArgsParser();
+    }
+
+    /**
+     * Executes the stat command with the provided arguments and prints the number of bytes and lines of the file
+     * and whether its last line ends with a line feed.
+     *
+     * @param arguments the arguments for the stat command
+     * @throws CommandException if the command format is invalid, the file does not exist or an io errors occurs during file reading.
+     * @see IOException
+     */
+    @Override
+    public void execute(String arguments) throws CommandException {
+        logger.log(Level.INFO, "Received stat command arguments: {0}", arguments);
+
+        Optional<StatCommandArgsParser.Arguments> parsed = parser.parse(arguments);
+        if (parsed.isEmpty()) {
+            logger.log(Level.SEVERE, "Invalid stat command format arguments: {0}", arguments);
+            throw new CommandException("Invalid stat command format. Use: stat -f \"path/to/yourfile.txt\"");
+        }
+
+        String filePath = parsed.get().filePath();
+
+        logger.log(Level.INFO, "Stat command executing...");
+        try {
+            Path path = Paths.get(filePath);
+            if (Files.notExists(path)) {
+                logger.log(Level.SEVERE, "File does not exist: {0}", filePath);
+                throw new CommandException("File does not exist: " + filePath + ". Please check the file path and try again.");
+            }
+
+            LineCounter.Stats stats = LineCounter.count(path);
+            MetricsRegistry.getInstance().addBytesRead(stats.bytes());
+            System.out.println(filePath + ": " + stats.bytes() + " bytes, " + stats.lines() + " lines, "
+                    + (stats.terminated() ? "ends with a newline" : "no trailing newline"));
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error occurred during file stat", e);
+            throw new CommandException(e);
+        }
+    }
+
+    /**
+     * Returns the paths of the files the stat command with the provided arguments touches.
+     *
+     * @param arguments the arguments for the stat command
+     * @return the paths of the files touched by the command, empty if the arguments are invalid
+     */
+    @Override
+    public List<String> affectedPaths(String arguments) {
+        return parser.parse(arguments)
+                .map(parsedArguments -> List.of(parsedArguments.filePath()))
+                .orElse(List.of());
+    }
+}
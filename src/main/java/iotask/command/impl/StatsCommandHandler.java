@@ -0,0 +1,34 @@
+package main.java.iotask.command.impl;
+
+import main.java.iotask.command.CommandHandler;
+import main.java.iotask.metrics.MetricsRegistry;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+/**
+ * This class represents a command for displaying the application metrics.
+ * It implements the {@link CommandHandler} interface and provides the functionality to print the report of the {@link MetricsRegistry}:
+ * the latency percentiles of every command, the numbers of bytes read and written and of files touched, and the error counts.
+ *
+ * @author Nikita Gubin
+ */
+public class StatsCommandHandler implements CommandHandler {
+
+    /**
+     * The logger for {@link StatsCommandHandler} class.
+     */
+    private static final Logger logger = Logger.getLogger(StatsCommandHandler.class.getName());
+
+    /**
+     * Executes the command to print the metrics report.
+     *
+     * @param arguments the command arguments (not used for this command)
+     */
+    @Override
+    public void execute(String arguments) {
+        logger.log(Level.INFO, "Stats command executing...");
+
+        System.out.println(MetricsRegistry.getInstance().getReport());
+    }
+}
@@ -1,15 +1,36 @@
 package main.java.iotask.command.impl;
 
 import main.java.iotask.command.CommandHandler;
+import main.java.iotask.config.ApplicationConfig;
 import main.java.iotask.exception.CommandException;
+import main.java.iotask.metrics.MetricsRegistry;
+import main.java.iotask.io.AtomicFileReplacer;
+import main.java.iotask.io.CachedLineEditor;
+import main.java.iotask.io.Compression;
+import main.java.iotask.io.FileContentCache;
+import main.java.iotask.io.FileAppender;
+import main.java.iotask.io.IndexedLineEditor;
+import main.java.iotask.io.LineEdit;
+import main.java.iotask.io.LineEditor;
+import main.java.iotask.io.LinePatcher;
+import main.java.iotask.io.MappedLineEditor;
+import main.java.iotask.io.RegexLineReplacer;
+import main.java.iotask.io.StreamingLineEditor;
+import main.java.iotask.parser.LineEditParser;
 import main.java.iotask.parser.UpdateCommandArgsParser;
-import main.java.iotask.validator.CommandArgsValidator;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import java.util.logging.Logger;
 import java.util.logging.Level;
@@ -17,12 +38,26 @@ import java.util.logging.Level;
 /**
  * This class represents a command for updating a file.
  * It implements the {@link CommandHandler} interface and provides the functionality to execute the update command.
- * The class uses {@link UpdateCommandArgsParser} for parsing the command arguments and {@link CommandArgsValidator} for validating the command format.
+ * The class uses {@link UpdateCommandArgsParser} for validating the command format and parsing the command arguments in a single pass.
  * Supports various update operations such as replace file content, appending text, inserting text at a specific line, or deleting a line.
+ * Many edits can be applied at once from a patch file with the -p option: they are applied by {@link LinePatcher} in a single pass over the file.
+ * The -r option replaces the matches of a regular expression in every line, streaming the file through {@link RegexLineReplacer}.
+ * Inserting and deleting a line are streamed by {@link StreamingLineEditor}, so the memory used does not depend on the file size,
+ * or, if the line index is enabled, performed by {@link IndexedLineEditor}, which seeks straight to the target line.
+ * With the --mmap option they are performed by {@link MappedLineEditor}, which works on the mapped bytes of very large files without decoding them.
+ * Appending text writes only the new line through {@link FileAppender}.
+ * Replacing the file content, inserting and deleting a line write the new content to a temporary file which replaces the file
+ * through {@link AtomicFileReplacer}, so a crash or a concurrent reader never sees a partially written file.
+ * If the file content cache is enabled, the content of recently updated files is kept in memory by {@link CachedLineEditor},
+ * so updates of hot files skip reading the file and only write the changes through.
+ * A file path ending with {@code .txt.gz} is a gzip-compressed file: it is always edited by the {@link StreamingLineEditor} through its {@link Compression},
+ * bypassing the memory-mapped editor, the line index and the cache, which work on the stored bytes, and appending writes a new gzip member.
+ * The sizes of the file before and after the update are recorded in the {@link MetricsRegistry} as the bytes read and written,
+ * except for appending, which reads nothing and writes only the new line.
  *
  * @author Nikita Gubin
- * @see UpdateFileCommandHandler#replaceFileContent(List, String)
- * @see UpdateFileCommandHandler#updateFileContent(String, String, List, String)
+ * @see UpdateFileCommandHandler#replaceFileContent(String, Path)
+ * @see UpdateFileCommandHandler#updateFileContent(String, String, Path, String, LineEditor)
  */
 public final class UpdateFileCommandHandler implements CommandHandler {
 
@@ -34,7 +69,7 @@ public final class UpdateFileCommandHandler implements CommandHandler {
     /**
      * The regular expression for validating the format of the update command arguments.
      */
-    public static final String UPDATE_COMMAND_ARGS_REGEX = "^-f \"([^\"]+\\.txt)\" (-a \"([^\"]+)\"|-nl (\\d+) \"([^\"]+)\"|-dl (\\d+)|\"([^\"]+)\")\\s*$";
+    public static final String UPDATE_COMMAND_ARGS_REGEX = "^(?:(--mmap) )?-f \"([^\"]+\\.txt(?:\\.gz)?)\" (-a \"([^\"]+)\"|-nl (\\d+) \"([^\"]+)\"|-dl (\\d+)|-p \"([^\"]+)\"|-r \"([^\"]+)\" \"([^\"]*)\"|\"([^\"]+)\")\\s*$";
 
     /**
      * The option for appending text to the file.
@@ -51,6 +86,55 @@ public final class UpdateFileCommandHandler implements CommandHandler {
      */
     public static final String DL_OPTION = "-dl";
 
+    /**
+     * The option for applying the edits of a patch file.
+     */
+    public static final String P_OPTION = "-p";
+
+    /**
+     * The option for replacing the matches of a regular expression.
+     */
+    public static final String R_OPTION = "-r";
+
+    /**
+     * The prefix of the comment lines of a patch file.
+     */
+    private static final String PATCH_COMMENT_PREFIX = "#";
+
+    /**
+     * The setting enabling the line offset index for the insert and delete line operations.
+     *
+     * @see IndexedLineEditor
+     */
+    public static final String LINE_INDEX_ENABLED_SETTING = "iotask.update.lineIndex.enabled";
+
+    /**
+     * The setting holding the maximum number of bytes of the line offset indexes.
+     */
+    public static final String LINE_INDEX_MAX_BYTES_SETTING = "iotask.update.lineIndex.maxBytes";
+
+    /**
+     * The default maximum number of bytes of the line offset indexes.
+     */
+    private static final long DEFAULT_LINE_INDEX_MAX_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * The setting enabling the file content cache.
+     *
+     * @see CachedLineEditor
+     */
+    public static final String CACHE_ENABLED_SETTING = "iotask.update.cache.enabled";
+
+    /**
+     * The setting holding the maximum number of bytes of the file content cache.
+     */
+    public static final String CACHE_MAX_BYTES_SETTING = "iotask.update.cache.maxBytes";
+
+    /**
+     * The default maximum number of bytes of the file content cache.
+     */
+    private static final long DEFAULT_CACHE_MAX_BYTES = 256L * 1024 * 1024;
+
     /**
      * The parser used to parse the update command arguments.
      *
@@ -59,10 +143,69 @@ public final class UpdateFileCommandHandler implements CommandHandler {
     private final UpdateCommandArgsParser parser;
 
     /**
-     * Constructs a new {@link UpdateFileCommandHandler} with a {@link UpdateCommandArgsParser}.
+     * The parser used to parse the edits of a patch file.
+     *
+     * @see LineEditParser
+     */
+    private final LineEditParser lineEditParser;
+
+    /**
+     * The patcher used to apply the edits of a patch file.
+     *
+     * @see LinePatcher
+     */
+    private final LinePatcher linePatcher;
+
+    /**
+     * The editor used to insert and delete lines of the file.
+     *
+     * @see LineEditor
+     */
+    private final LineEditor lineEditor;
+
+    /**
+     * The editor used to insert and delete lines of the file with the --mmap option.
+     *
+     * @see MappedLineEditor
+     */
+    private final LineEditor mappedLineEditor;
+
+    /**
+     * The editor used to insert and delete lines of gzip-compressed files.
+     *
+     * @see StreamingLineEditor
+     */
+    private final LineEditor compressedLineEditor;
+
+    /**
+     * The editor keeping the content of recently updated files in memory, or null if the cache is disabled.
+     *
+     * @see CachedLineEditor
+     */
+    private final CachedLineEditor cachedLineEditor;
+
+    /**
+     * Constructs a new {@link UpdateFileCommandHandler} with a {@link UpdateCommandArgsParser} and a {@link LineEditor} chosen by the application settings.
+     *
+     * @see UpdateFileCommandHandler#LINE_INDEX_ENABLED_SETTING
+     * @see UpdateFileCommandHandler#CACHE_ENABLED_SETTING
      */
     public UpdateFileCommandHandler() {
         parser = new UpdateCommandArgsParser();
+        lineEditParser = new LineEditParser();
+        linePatcher = new LinePatcher();
+        cachedLineEditor = ApplicationConfig.getBoolean(CACHE_ENABLED_SETTING, false)
+                ? new CachedLineEditor(new FileContentCache(ApplicationConfig.getLong(CACHE_MAX_BYTES_SETTING, DEFAULT_CACHE_MAX_BYTES)))
+                : null;
+        if (cachedLineEditor != null) {
+            lineEditor = cachedLineEditor;
+        } else {
+            lineEditor = ApplicationConfig.getBoolean(LINE_INDEX_ENABLED_SETTING, false)
+                    ? new IndexedLineEditor(ApplicationConfig.getLong(LINE_INDEX_MAX_BYTES_SETTING, DEFAULT_LINE_INDEX_MAX_BYTES))
+                    : new StreamingLineEditor();
+        }
+        mappedLineEditor = new MappedLineEditor();
+        compressedLineEditor = new StreamingLineEditor();
     }
 
     /**
@@ -74,23 +217,26 @@ public final class UpdateFileCommandHandler implements CommandHandler {
      */
     @Override
     public void execute(String arguments) throws CommandException {
-        logger.log(Level.INFO, "Received update command arguments: " + arguments);
+        logger.log(Level.INFO, "Received update command arguments: {0}", arguments);
 
-        if (!CommandArgsValidator.validate(arguments, UPDATE_COMMAND_ARGS_REGEX)) {
-            logger.log(Level.SEVERE, "Invalid update command format arguments: " + arguments);
-            throw new CommandException("Invalid update command format.Use: update -f \"path/to/yourfile.txt\" [-a or -nl or -dl] \"your text content\"(-dl option without text content)");
+        Optional<UpdateCommandArgsParser.Arguments> parsed = parser.parse(arguments);
+        if (parsed.isEmpty()) {
+            logger.log(Level.SEVERE, "Invalid update command format arguments: {0}", arguments);
+            throw new CommandException("Invalid update command format.Use: update [--mmap] -f \"path/to/yourfile.txt[.gz]\" [-a or -nl or -dl] \"your text content\"(-dl option without text content) or update -f \"path/to/yourfile.txt\" -p \"path/to/edits.txt\" or update -f \"path/to/yourfile.txt\" -r \"regex\" \"replacement\"");
         }
 
-        parser.parse(arguments);
-        String filePath = parser.getFilePath();
-        String updateOption = parser.getOption();
-        String text = parser.getText();
-        String lineNumber = parser.getLineNumber();
+        UpdateCommandArgsParser.Arguments parsedArguments = parsed.get();
+        String filePath = parsedArguments.filePath();
+        String updateOption = parsedArguments.option();
+        String text = parsedArguments.text();
+        String lineNumber = parsedArguments.lineNumber();
+        String replacement = parsedArguments.replacement();
+        LineEditor editor = parsedArguments.mmap() ? mappedLineEditor : lineEditor;
 
         logger.log(Level.INFO, "Update file command executing...");
         try {
-            processFile(filePath, updateOption, text, lineNumber);
-            logger.log(Level.INFO, "File updated successfully: " + filePath);
+            processFile(filePath, updateOption, text, lineNumber, replacement, editor);
+            logger.log(Level.INFO, "File updated successfully: {0}", filePath);
         } catch (IOException e) {
             logger.log(Level.SEVERE, "Error occurred during file update", e);
             throw new CommandException(e);
@@ -101,93 +247,159 @@ public final class UpdateFileCommandHandler implements CommandHandler {
     }
 
     /**
-     * Processes the file according to the specified update option (-a, -nl, -dl), text, and line number or their absence.
+     * Returns the paths of the files the update command with the provided arguments touches.
+     *
+     * @param arguments the arguments for the update command
+     * @return the paths of the files touched by the command, empty if the arguments are invalid
+     */
+    @Override
+    public List<String> affectedPaths(String arguments) {
+        return parser.parse(arguments)
+                .map(parsedArguments -> P_OPTION.equals(parsedArguments.option())
+                        ? List.of(parsedArguments.filePath(), parsedArguments.text())
+                        : List.of(parsedArguments.filePath()))
+                .orElse(List.of());
+    }
+
+    /**
+     * Processes the file according to the specified update option (-a, -nl, -dl, -p, -r), text, and line number or their absence.
      *
      * @param filePath     the path to the file to be updated.
      * @param updateOption the update operation to be performed. (options: -a, -nl, -dl)
      * @param text         the text to be used in the update operation.
      * @param lineNumber   the line number for insert or delete operations.
+     * @param replacement  the replacement of the matches for the -r option.
+     * @param editor       the editor used to insert or delete the line.
      * @throws IOException      if an I/O error occurs reading or writing the file.
      * @throws CommandException if the update operation is invalid.
      */
-    private void processFile(String filePath, String updateOption, String text, String lineNumber) throws IOException, CommandException {
+    private void processFile(String filePath, String updateOption, String text, String lineNumber, String replacement, LineEditor editor) throws IOException, CommandException {
         Path path = Paths.get(filePath);
 
         if (Files.notExists(path)) {
-            logger.log(Level.SEVERE, "File does not exist: " + filePath);
+            logger.log(Level.SEVERE, "File does not exist: {0}", filePath);
             throw new CommandException("File does not exist: " + filePath + ". Please check the file path and try again.");
         }
 
-        List<String> lines = Files.readAllLines(path);
+        if (Compression.of(path) == Compression.GZIP && editor != compressedLineEditor) {
+            if (editor == mappedLineEditor) {
+                logger.log(Level.INFO, "Memory-mapped editing does not support compressed files, streaming instead: {0}", filePath);
+            }
+            editor = compressedLineEditor;
+        }
 
+        long sizeBefore = Files.size(path);
         if (updateOption == null) {
-            replaceFileContent(lines, text);
+            replaceFileContent(text, path);
         } else {
-            updateFileContent(updateOption, text, lines, lineNumber);
+            updateFileContent(updateOption, text, path, lineNumber, replacement, editor);
         }
+        long sizeAfter = Files.size(path);
 
-        Files.write(path, lines);
+        MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
+        if (A_OPTION.equals(updateOption)) {
+            metricsRegistry.addBytesWritten(sizeAfter - sizeBefore);
+        } else {
+            metricsRegistry.addBytesRead(sizeBefore);
+            metricsRegistry.addBytesWritten(sizeAfter);
+        }
+        metricsRegistry.addFilesTouched(1);
     }
 
     /**
-     * Replaces the entire content of the file with the specified text.
+     * Replaces the entire content of the file with the specified text as a single line.
      *
-     * @param lines the lines of the file to be replaced.
-     * @param text  the new text content for the file.
+     * @param text the new text content for the file.
+     * @param path the path to the file to be updated.
+     * @throws IOException if an I/O error occurs writing the file.
      */
-    private void replaceFileContent(List<String> lines, String text) {
+    private void replaceFileContent(String text, Path path) throws IOException {
         logger.log(Level.INFO, "Replacing file content");
 
-        lines.clear();
-        lines.add(text);
+        Compression compression = Compression.of(path);
+        if (cachedLineEditor != null && compression == Compression.NONE) {
+            cachedLineEditor.replaceContent(path, text);
+            return;
+        }
+        AtomicFileReplacer.replace(path, temp -> {
+            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(compression.newOutputStream(temp), StandardCharsets.UTF_8))) {
+                writer.write(text);
+                writer.newLine();
+            }
+            return true;
+        });
     }
 
     /**
      * Updates the file content based on the specified update option.
-     * Options include insert, delete, and append operations. (options: -nl, -dl, -a )
+     * Options include insert, delete, append, patch and regular expression replacement operations. (options: -nl, -dl, -a, -p, -r )
      *
      * @param updateOption the update operation to be performed.
      * @param text         the text to be used in the update operation.
-     * @param lines        the current lines of the file.
+     * @param path         the path to the file to be updated.
      * @param lineNumber   the line number for insert or delete operations, if applicable.
+     * @param replacement  the replacement of the matches for the -r option, if applicable.
+     * @param editor       the editor used to insert or delete the line.
+     * @throws IOException      if an I/O error occurs reading or writing the file.
      * @throws CommandException if the update operation is invalid.
      * @see UpdateFileCommandHandler#A_OPTION
      * @see UpdateFileCommandHandler#NL_OPTION
      * @see UpdateFileCommandHandler#DL_OPTION
+     * @see UpdateFileCommandHandler#P_OPTION
+     * @see UpdateFileCommandHandler#R_OPTION
      */
-    private void updateFileContent(String updateOption, String text, List<String> lines, String lineNumber) throws CommandException {
+    private void updateFileContent(String updateOption, String text, Path path, String lineNumber, String replacement, LineEditor editor) throws IOException, CommandException {
         logger.log(Level.INFO, "Updating file content");
 
         switch (updateOption) {
-            case A_OPTION -> lines.add(text);
-            case NL_OPTION -> insertTextAtLine(Integer.parseInt(lineNumber), text, lines);
-            case DL_OPTION -> deleteLine(Integer.parseInt(lineNumber), lines);
+            case A_OPTION -> appendText(text, path);
+            case NL_OPTION -> insertTextAtLine(Integer.parseInt(lineNumber), text, path, editor);
+            case DL_OPTION -> deleteLine(Integer.parseInt(lineNumber), path, editor);
+            case P_OPTION -> applyPatch(Paths.get(text), path);
+            case R_OPTION -> replaceMatches(text, replacement, path);
+        }
+    }
+
+    /**
+     * Appends text as a new line at the end of the file.
+     * Update option is -a.
+     *
+     * @param text the text to append.
+     * @param path the path to the file to be updated.
+     * @throws IOException if an I/O error occurs reading or writing the file.
+     * @see UpdateFileCommandHandler#A_OPTION
+     */
+    private void appendText(String text, Path path) throws IOException {
+        logger.log(Level.INFO, "Appending text to the end of the file");
+
+        if (cachedLineEditor != null && Compression.of(path) == Compression.NONE) {
+            cachedLineEditor.appendLine(path, text);
+        } else {
+            FileAppender.appendLine(path, text);
         }
     }
 
     /**
      * Inserts text at the specified line number in the file.
+     * If the file has fewer lines, it is padded with empty lines so that the text ends up at the specified line.
      * Update option is -nl.
      *
      * @param lineNumber the line number where the text should be inserted.
      * @param text       the text to insert.
-     * @param lines      the current lines of the file.
+     * @param path       the path to the file to be updated.
+     * @param editor     the editor used to insert the line.
+     * @throws IOException      if an I/O error occurs reading or writing the file.
      * @throws CommandException if the line number is invalid.
      * @see UpdateFileCommandHandler#NL_OPTION
      */
-    private void insertTextAtLine(int lineNumber, String text, List<String> lines) throws CommandException {
-        logger.log(Level.INFO, "Inserting text at line: " + lineNumber);
+    private void insertTextAtLine(int lineNumber, String text, Path path, LineEditor editor) throws IOException, CommandException {
+        logger.log(Level.INFO, "Inserting text at line: {0,number,#}", lineNumber);
 
         if (lineNumber <= 0) {
-            logger.log(Level.SEVERE, "Error occurred while inserting text at line:" + lineNumber);
+            logger.log(Level.SEVERE, "Error occurred while inserting text at line:{0,number,#}", lineNumber);
             throw new CommandException("Invalid line number for insertion. Please provide a valid line number.");
         }
-        if (lineNumber > lines.size()) {
-            while (lines.size() < lineNumber) {
-                lines.add("");
-            }
-        }
-        lines.add(lineNumber - 1, text);
+        editor.insertLine(path, lineNumber, text);
     }
 
     /**
@@ -195,17 +407,95 @@ public final class UpdateFileCommandHandler implements CommandHandler {
      * Update option is -dl.
      *
      * @param lineNumber the line number of the line to be deleted.
-     * @param lines      the current lines of the file.
+     * @param path       the path to the file to be updated.
+     * @param editor     the editor used to delete the line.
+     * @throws IOException      if an I/O error occurs reading or writing the file.
      * @throws CommandException if the line number is invalid.
      * @see UpdateFileCommandHandler#DL_OPTION
      */
-    private void deleteLine(int lineNumber, List<String> lines) throws CommandException {
-        logger.log(Level.INFO, "Deleting line: " + lineNumber);
+    private void deleteLine(int lineNumber, Path path, LineEditor editor) throws IOException, CommandException {
+        logger.log(Level.INFO, "Deleting line: {0,number,#}", lineNumber);
 
-        if (lineNumber <= 0 || lineNumber > lines.size()) {
-            logger.log(Level.SEVERE, "Error occurred while deleting line:" + lineNumber);
+        if (lineNumber <= 0 || !editor.deleteLine(path, lineNumber)) {
+            logger.log(Level.SEVERE, "Error occurred while deleting line:{0,number,#}", lineNumber);
             throw new CommandException("Invalid line number for deletion. Please provide a valid line number.");
         }
-        lines.remove(lineNumber - 1);
     }
-}
\ No newline at end of file
+
+    /**
+     * Applies the edits of the patch file to the file in a single pass.
+     * The patch file holds one edit per line in the format of the update options: {@code -a "text"}, {@code -nl N "text"} or {@code -dl N}.
+     * Blank lines and lines starting with {@code #} are skipped. The line numbers of all edits refer to the lines of the original file.
+     * Update option is -p.
+     *
+     * @param patchPath the path to the patch file.
+     * @param path      the path to the file to be updated.
+     * @throws IOException      if an I/O error occurs reading the patch file or reading or writing the file.
+     * @throws CommandException if the patch file is invalid or deletes a line the file does not have.
+     * @see UpdateFileCommandHandler#P_OPTION
+     * @see LinePatcher
+     */
+    private void applyPatch(Path patchPath, Path path) throws IOException, CommandException {
+        logger.log(Level.INFO, "Applying patch file: {0}", patchPath);
+
+        if (Files.notExists(patchPath)) {
+            logger.log(Level.SEVERE, "Patch file does not exist: {0}", patchPath);
+            throw new CommandException("Patch file does not exist: " + patchPath + ". Please check the file path and try again.");
+        }
+
+        List<LineEdit> edits = new ArrayList<>();
+        List<String> patchLines = Files.readAllLines(patchPath);
+        for (int i = 0; i < patchLines.size(); i++) {
+            String patchLine = patchLines.get(i).strip();
+            if (patchLine.isEmpty() || patchLine.startsWith(PATCH_COMMENT_PREFIX)) {
+                continue;
+            }
+            Optional<LineEdit> edit = lineEditParser.parse(patchLine).filter(parsedEdit -> parsedEdit.kind() == LineEdit.Kind.APPEND || parsedEdit.lineNumber() > 0);
+            if (edit.isEmpty()) {
+                logger.log(Level.SEVERE, "Invalid patch line {0,number,#}: {1}", new Object[]{i + 1, patchLine});
+                throw new CommandException("Invalid edit at line " + (i + 1) + " of the patch file. Use: -a \"text\", -nl N \"text\" or -dl N");
+            }
+            edits.add(edit.get());
+        }
+
+        if (!linePatcher.apply(path, edits)) {
+            logger.log(Level.SEVERE, "Patch deletes a line the file does not have: {0}", patchPath);
+            throw new CommandException("Invalid line number for deletion in the patch file. Please provide valid line numbers.");
+        }
+        logger.log(Level.INFO, "Applied {0,number,#} edits", edits.size());
+    }
+
+    /**
+     * Replaces every match of the regular expression in the lines of the file with the replacement, in a single streaming pass.
+     * The replacement may refer to the groups of the regular expression with {@code $1} or {@code ${name}}. If nothing matches the file is not rewritten.
+     * Update option is -r.
+     *
+     * @param regex       the regular expression to find in every line.
+     * @param replacement the replacement of every match.
+     * @param path        the path to the file to be updated.
+     * @throws IOException      if an I/O error occurs reading or writing the file.
+     * @throws CommandException if the regular expression or the replacement is invalid.
+     * @see UpdateFileCommandHandler#R_OPTION
+     * @see RegexLineReplacer
+     */
+    private void replaceMatches(String regex, String replacement, Path path) throws IOException, CommandException {
+        logger.log(Level.INFO, "Replacing matches of: {0}", regex);
+
+        Pattern pattern;
+        try {
+            pattern = Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+            logger.log(Level.SEVERE, "Invalid regular expression: {0}", regex);
+            throw new CommandException("Invalid regular expression: " + e.getDescription() + ". Please provide a valid regular expression.");
+        }
+
+        RegexLineReplacer.Result result;
+        try {
+            result = RegexLineReplacer.replace(path, pattern, replacement);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            logger.log(Level.SEVERE, "Invalid replacement: {0}", replacement);
+            throw new CommandException("Invalid replacement: " + e.getMessage() + ". Escape $ and \\ with a backslash.");
+        }
+        logger.log(Level.INFO, "Replaced {0,number,#} matches in {1,number,#} lines", new Object[]{result.replacements(), result.lines()});
+    }
+}
@@ -0,0 +1,97 @@
+package main.java.iotask.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+/**
+ * A class providing the application settings.
+ * The settings are loaded from the {@code application.properties} resource, and every setting can be overridden by a system property with the same key.
+ *
+ * @author Nikita Gubin
+ */
+public final class ApplicationConfig {
+
+    /**
+     * The logger for {@link ApplicationConfig} class.
+     */
+    private static final Logger logger = Logger.getLogger(ApplicationConfig.class.getName());
+
+    /**
+     * The name of the resource the settings are loaded from.
+     */
+    private static final String PROPERTIES_RESOURCE = "/application.properties";
+
+    /**
+     * The settings loaded from the properties resource.
+     */
+    private static final Properties properties = loadProperties();
+
+    private ApplicationConfig() {
+    }
+
+    /**
+     * Retrieves the string value of the setting.
+     *
+     * @param key          the key of the setting
+     * @param defaultValue the value returned if the setting is not defined
+     * @return the value of the setting, or the default value if it is not defined
+     */
+    public static String getString(String key, String defaultValue) {
+        return System.getProperty(key, properties.getProperty(key, defaultValue)).trim();
+    }
+
+    /**
+     * Retrieves the boolean value of the setting.
+     *
+     * @param key          the key of the setting
+     * @param defaultValue the value returned if the setting is not defined
+     * @return the value of the setting, or the default value if it is not defined
+     */
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        return Boolean.parseBoolean(getString(key, String.valueOf(defaultValue)));
+    }
+
+    /**
+     * Retrieves the integer value of the setting.
+     *
+     * @param key          the key of the setting
+     * @param defaultValue the value returned if the setting is not defined or is not a valid integer
+     * @return the value of the setting, or the default value if it is not defined or is not a valid integer
+     */
+    public static int getInt(String key, int defaultValue) {
+        return (int) getLong(key, defaultValue);
+    }
+
+    /**
+     * Retrieves the long value of the setting.
+     *
+     * @param key          the key of the setting
+     * @param defaultValue the value returned if the setting is not defined or is not a valid long
+     * @return the value of the setting, or the default value if it is not defined or is not a valid long
+     */
+    public static long getLong(String key, long defaultValue) {
+        String value = getString(key, String.valueOf(defaultValue));
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            logger.log(Level.WARNING, "Invalid value of setting {0}: {1}, using {2}", new Object[]{key, value, String.valueOf(defaultValue)});
+            return defaultValue;
+        }
+    }
+
+    private static Properties loadProperties() {
+        Properties loaded = new Properties();
+        try (InputStream in = ApplicationConfig.class.getResourceAsStream(PROPERTIES_RESOURCE)) {
+            if (in != null) {
+                loaded.load(in);
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not load application properties file", e);
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,204 @@
+package main.java.iotask.executor;
+
+import main.java.iotask.command.CommandName;
+import main.java.iotask.exception.CommandException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+/**
+ * A class for executing a script of commands non-interactively.
+ * The commands are read one per line without prompting, blank lines and lines starting with {@code #} are skipped,
+ * and reading stops at the end of the script or at the exit command.
+ * Failures are reported to the buffered output, and a summary of the run is returned once the script is over.
+ * With a parallelism greater than one the commands are executed by a {@link ConcurrentCommandExecutor},
+ * so commands on unrelated files run in parallel while commands on the same file keep the script order.
+ * A few times as many commands as the parallelism are in flight at once, so a script of any length is executed in constant memory,
+ * and the failures of the commands executed concurrently are reported as the commands complete.
+ *
+ * @author Nikita Gubin
+ * @see CommandExecutor
+ */
+public class BatchCommandRunner {
+
+    /**
+     * The logger for {@link BatchCommandRunner} class.
+     */
+    private static final Logger logger = Logger.getLogger(BatchCommandRunner.class.getName());
+
+    /**
+     * The prefix of the comment lines of a script.
+     */
+    private static final String COMMENT_PREFIX = "#";
+
+    /**
+     * The number of commands in flight per worker thread, keeping the workers busy while the next commands are read.
+     */
+    private static final int IN_FLIGHT_PER_THREAD = 4;
+
+    /**
+     * The executor the commands of the script are executed with.
+     *
+     * @see CommandExecutor
+     */
+    private final CommandExecutor commandExecutor;
+
+    /**
+     * The output the failures and the summary are reported to.
+     */
+    private final PrintWriter out;
+
+    /**
+     * The number of commands executed at the same time.
+     */
+    private final int parallelism;
+
+    /**
+     * Constructs a new {@link BatchCommandRunner} executing commands one by one with the specified executor and reporting to the specified output.
+     *
+     * @param commandExecutor the executor the commands are executed with
+     * @param out             the output the failures are reported to
+     */
+    public BatchCommandRunner(CommandExecutor commandExecutor, PrintWriter out) {
+        this(commandExecutor, out, 1);
+    }
+
+    /**
+     * Constructs a new {@link BatchCommandRunner} executing up to the specified number of commands at the same time.
+     *
+     * @param commandExecutor the executor the commands are executed with
+     * @param out             the output the failures are reported to
+     * @param parallelism     the number of commands executed at the same time
+     */
+    public BatchCommandRunner(CommandExecutor commandExecutor, PrintWriter out, int parallelism) {
+        this.commandExecutor = commandExecutor;
+        this.out = out;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Executes the commands of the script.
+     *
+     * @param script the reader of the script, one command per line
+     * @return the summary of the run
+     * @throws IOException if an I/O error occurs reading the script
+     */
+    public Summary run(BufferedReader script) throws IOException {
+        long start = System.nanoTime();
+        int[] counts = parallelism > 1 ? runConcurrently(script) : runSequentially(script);
+
+        Summary summary = new Summary(counts[0], counts[1], System.nanoTime() - start);
+        logger.log(Level.INFO, "Script executed: {0}", summary);
+        return summary;
+    }
+
+    /**
+     * Executes the commands of the script one by one.
+     *
+     * @param script the reader of the script
+     * @return the numbers of succeeded and failed commands
+     * @throws IOException if an I/O error occurs reading the script
+     */
+    private int[] runSequentially(BufferedReader script) throws IOException {
+        int succeeded = 0;
+        int failed = 0;
+        int lineNumber = 0;
+
+        String commandLine;
+        while ((commandLine = script.readLine()) != null) {
+            lineNumber++;
+            String command = commandLine.strip();
+            if (command.isEmpty() || command.startsWith(COMMENT_PREFIX)) {
+                continue;
+            }
+            if (isExitCommand(command)) {
+                break;
+            }
+
+            try {
+                commandExecutor.executeCommand(command);
+                succeeded++;
+            } catch (CommandException e) {
+                failed++;
+                reportFailure(lineNumber, command, e);
+            }
+        }
+        return new int[]{succeeded, failed};
+    }
+
+    /**
+     * Submits the commands of the script to a {@link ConcurrentCommandExecutor}, waiting for a command to complete
+     * whenever the maximum number of commands is in flight, and counts and reports the commands as they complete.
+     *
+     * @param script the reader of the script
+     * @return the numbers of succeeded and failed commands
+     * @throws IOException if an I/O error occurs reading the script
+     */
+    private int[] runConcurrently(BufferedReader script) throws IOException {
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        int maxInFlight = parallelism * IN_FLIGHT_PER_THREAD;
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        try (ConcurrentCommandExecutor concurrentExecutor = new ConcurrentCommandExecutor(commandExecutor, parallelism)) {
+            int lineNumber = 0;
+            String commandLine;
+            while ((commandLine = script.readLine()) != null) {
+                lineNumber++;
+                String command = commandLine.strip();
+                if (command.isEmpty() || command.startsWith(COMMENT_PREFIX)) {
+                    continue;
+                }
+                if (isExitCommand(command)) {
+                    break;
+                }
+                int submittedLine = lineNumber;
+                inFlight.acquireUninterruptibly();
+                concurrentExecutor.submit(command).whenComplete((result, e) -> {
+                    if (e == null) {
+                        succeeded.incrementAndGet();
+                    } else {
+                        failed.incrementAndGet();
+                        reportFailure(submittedLine, command, e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                    }
+                    inFlight.release();
+                });
+            }
+        }
+        inFlight.acquireUninterruptibly(maxInFlight);
+        return new int[]{succeeded.get(), failed.get()};
+    }
+
+    private void reportFailure(int lineNumber, String command, Throwable e) {
+        out.println("Line " + lineNumber + ": " + command + ": " + e.getMessage());
+    }
+
+    private static boolean isExitCommand(String command) {
+        String commandName = command.split(" ", 2)[0];
+        return commandName.equalsIgnoreCase(CommandName.EXIT.name());
+    }
+
+    /**
+     * The summary of a script run.
+     *
+     * @param succeeded    the number of commands executed successfully
+     * @param failed       the number of commands that failed
+     * @param elapsedNanos the time the run took in nanoseconds
+     */
+    public record Summary(int succeeded, int failed, long elapsedNanos) {
+
+        @Override
+        public String toString() {
+            int total = succeeded + failed;
+            double seconds = elapsedNanos / 1e9;
+            return String.format("%d commands executed in %.3f s (%.1f commands/s): %d succeeded, %d failed",
+                    total, seconds, total / Math.max(seconds, 1e-9), succeeded, failed);
+        }
+    }
+}
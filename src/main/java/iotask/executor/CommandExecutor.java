@@ -1,14 +1,31 @@
 package main.java.iotask.executor;
 
 import main.java.iotask.command.CommandHandler;
+import main.java.iotask.command.CommandName;
 import main.java.iotask.exception.CommandException;
 import main.java.iotask.command.CommandProvider;
+import main.java.iotask.config.ApplicationConfig;
+import main.java.iotask.journal.WriteAheadJournal;
+import main.java.iotask.metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
 
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
 /**
  * A class responsible for executing commands based on the provided command line input.
+ * The latency and the failures of every command are recorded in the {@link MetricsRegistry}.
+ * If the journal is enabled, the commands creating, updating and deleting files are written to the {@link WriteAheadJournal}
+ * before they are applied, and the commands interrupted by a crash of the process are replayed when the executor is created.
  *
  * @author Nikita Gubin
  * @see CommandHandler
@@ -20,6 +37,13 @@ public class CommandExecutor {
      */
     private static final Logger logger = Logger.getLogger(CommandExecutor.class.getName());
 
+    /**
+     * The names of the commands modifying files, which are journaled.
+     *
+     * @see CommandName
+     */
+    private static final Set<String> JOURNALED_COMMANDS = Set.of(CommandName.CREATE.name(), CommandName.UPDATE.name(), CommandName.DELETE.name());
+
     /**
      * The provider for obtaining instances of different command implementations.
      *
@@ -29,10 +53,38 @@ public class CommandExecutor {
     private final CommandProvider commandProvider;
 
     /**
-     * Constructs a new {@link CommandExecutor} with a {@link CommandProvider} instance.
+     * The registry the command latencies and failures are recorded in.
+     *
+     * @see MetricsRegistry
+     */
+    private final MetricsRegistry metricsRegistry;
+
+    /**
+     * The journal the commands modifying files are written to, or null if the journal is disabled.
+     *
+     * @see WriteAheadJournal
+     */
+    private final WriteAheadJournal journal;
+
+    /**
+     * Constructs a new {@link CommandExecutor} with a {@link CommandProvider} instance,
+     * opening the journal and replaying the commands left unapplied by the previous run if the journal is enabled.
+     *
+     * @throws UncheckedIOException if the journal is enabled and cannot be opened or replayed
+     * @see WriteAheadJournal#ENABLED_SETTING
      */
     public CommandExecutor() {
         commandProvider = CommandProvider.getInstance();
+        metricsRegistry = MetricsRegistry.getInstance();
+        try {
+            journal = ApplicationConfig.getBoolean(WriteAheadJournal.ENABLED_SETTING, false) ? WriteAheadJournal.getInstance() : null;
+            if (journal != null) {
+                replayJournal();
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not open the journal", e);
+            throw new UncheckedIOException(e);
+        }
     }
 
     /**
@@ -43,7 +95,7 @@ public class CommandExecutor {
      * @see CommandHandler
      */
     public void executeCommand(String commandLine) throws CommandException {
-        logger.log(Level.INFO, "Received command line: " + commandLine);
+        logger.log(Level.INFO, "Received command line: {0}", commandLine);
 
         String[] parts = parseCommandLine(commandLine);
         String commandName = parts[0];
@@ -52,7 +104,98 @@ public class CommandExecutor {
         CommandHandler commandHandler = commandProvider.getCommand(commandName);
 
         logger.log(Level.INFO, "Executing command...");
-        commandHandler.execute(arguments);
+        long start = System.nanoTime();
+        try {
+            if (journal != null && JOURNALED_COMMANDS.contains(commandName.toUpperCase())) {
+                executeJournaled(commandLine, commandHandler, arguments);
+            } else {
+                commandHandler.execute(arguments);
+            }
+            metricsRegistry.recordCommand(metricName(commandName), System.nanoTime() - start, null);
+        } catch (CommandException | RuntimeException e) {
+            metricsRegistry.recordCommand(metricName(commandName), System.nanoTime() - start, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Appends the command to the journal, applies it and marks it as applied.
+     * Commands with invalid arguments touch no file and are executed without journaling, so the handler reports the error.
+     *
+     * @param commandLine    the user input command line
+     * @param commandHandler the handler of the command
+     * @param arguments      the arguments of the command
+     * @throws CommandException if the command cannot be journaled or an error occurs during command execution
+     */
+    private void executeJournaled(String commandLine, CommandHandler commandHandler, String arguments) throws CommandException {
+        List<String> paths = commandHandler.affectedPaths(arguments);
+        if (paths.isEmpty()) {
+            commandHandler.execute(arguments);
+            return;
+        }
+
+        long sequence;
+        try {
+            List<Path> files = new ArrayList<>(paths.size());
+            for (String path : paths) {
+                files.add(Paths.get(path));
+            }
+            sequence = journal.append(commandLine, files);
+        } catch (IOException | InvalidPathException e) {
+            logger.log(Level.SEVERE, "Could not journal the command", e);
+            throw new CommandException(e);
+        }
+        try {
+            commandHandler.execute(arguments);
+        } finally {
+            try {
+                journal.applied(sequence);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Could not mark the command as applied in the journal", e);
+            }
+        }
+    }
+
+    /**
+     * Replays the commands left unapplied by the previous run and checkpoints the journal.
+     *
+     * @throws IOException if an I/O error occurs checkpointing the journal
+     */
+    private void replayJournal() throws IOException {
+        List<WriteAheadJournal.Record> records = journal.recover();
+        for (WriteAheadJournal.Record record : records) {
+            logger.log(Level.INFO, "Replaying journaled command: {0}", record.commandLine());
+            String[] parts = parseCommandLine(record.commandLine());
+            try {
+                commandProvider.getCommand(parts[0]).execute(parts[1]);
+            } catch (CommandException e) {
+                logger.log(Level.WARNING, "Journaled command failed again: {0}", e.getMessage());
+            }
+        }
+        journal.checkpoint();
+    }
+
+    /**
+     * Returns the paths of the files the command given by the command line input reads or writes.
+     *
+     * @param commandLine the user input command line
+     * @return the paths of the files touched by the command
+     * @see CommandHandler#affectedPaths(String)
+     */
+    public List<String> affectedPaths(String commandLine) {
+        String[] parts = parseCommandLine(commandLine);
+        return commandProvider.getCommand(parts[0]).affectedPaths(parts[1]);
+    }
+
+    /**
+     * Returns the name the metrics of the command are recorded under: the upper-cased {@link CommandName}, or UNKNOWN for an unknown command.
+     *
+     * @param commandName the name of the command given by the user
+     * @return the name of the command metrics
+     */
+    private static String metricName(String commandName) {
+        String name = commandName.toUpperCase();
+        return Arrays.stream(CommandName.values()).anyMatch(value -> value.name().equals(name)) ? name : "UNKNOWN";
     }
 
     /**
@@ -0,0 +1,105 @@
+package main.java.iotask.executor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+
+/**
+ * A router of the standard output capturing what the commands print, so the output of a command can be sent to the client that sent it.
+ * The command handlers print their results to {@link System#out}; once {@link #install()} has replaced it, the bytes printed by a thread
+ * executing a command through {@link #capture(CommandCall)} are collected for that command, while the other threads still print to the original output.
+ * The commands of different threads never mix, as a {@link PrintStream} hands every printed text to its stream on the printing thread.
+ *
+ * @author Nikita Gubin
+ * @see ConcurrentCommandExecutor#submitCapturingOutput(String)
+ */
+public final class CommandOutput extends OutputStream {
+
+    /**
+     * The output of the command executed by the current thread, or null if the thread prints to the original output.
+     */
+    private static final ThreadLocal<ByteArrayOutputStream> captured = new ThreadLocal<>();
+
+    /**
+     * The original standard output.
+     */
+    private final OutputStream original;
+
+    private CommandOutput(OutputStream original) {
+        this.original = original;
+    }
+
+    /**
+     * Replaces the standard output with a router capturing the output of the commands executed through {@link #capture(CommandCall)}.
+     * Does nothing if the router is already installed.
+     */
+    public static synchronized void install() {
+        if (!(System.out instanceof RoutingPrintStream)) {
+            System.setOut(new RoutingPrintStream(new CommandOutput(System.out), Charset.defaultCharset()));
+        }
+    }
+
+    /**
+     * Executes the command on the current thread and returns what it printed to the standard output.
+     * The output is printed to the original output instead if the router is not installed.
+     *
+     * @param command the command to execute
+     * @return the printed text
+     * @throws Exception if the command fails
+     */
+    public static String capture(CommandCall command) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        captured.set(output);
+        try {
+            command.call();
+        } finally {
+            captured.remove();
+        }
+        return output.toString(Charset.defaultCharset());
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        OutputStream target = captured.get();
+        (target != null ? target : original).write(b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        OutputStream target = captured.get();
+        (target != null ? target : original).write(bytes, offset, length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (captured.get() == null) {
+            original.flush();
+        }
+    }
+
+    /**
+     * A command whose output is captured.
+     */
+    @FunctionalInterface
+    public interface CommandCall {
+
+        /**
+         * Executes the command.
+         *
+         * @throws Exception if the command fails
+         */
+        void call() throws Exception;
+    }
+
+    /**
+     * The standard output printing through the router, recognized by {@link #install()}.
+     */
+    private static final class RoutingPrintStream extends PrintStream {
+
+        private RoutingPrintStream(CommandOutput out, Charset charset) {
+            super(out, true, charset);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package main.java.iotask.executor;
+
+import main.java.iotask.exception.CommandException;
+
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+/**
+ * A class for executing commands concurrently on a pool of worker threads.
+ * Commands touching the same file are executed in the order they were submitted: every command waits for the previously submitted commands
+ * sharing a path with it, while commands on unrelated files run in parallel.
+ * A path is shared with every path inside it, so a command on a directory, such as a tree copy or deletion, is also ordered against the commands
+ * on the files under that directory.
+ *
+ * @author Nikita Gubin
+ * @see CommandExecutor
+ */
+public class ConcurrentCommandExecutor implements AutoCloseable {
+
+    /**
+     * The logger for {@link ConcurrentCommandExecutor} class.
+     */
+    private static final Logger logger = Logger.getLogger(ConcurrentCommandExecutor.class.getName());
+
+    /**
+     * The executor each command is executed with.
+     *
+     * @see CommandExecutor
+     */
+    private final CommandExecutor commandExecutor;
+
+    /**
+     * The pool of worker threads executing the commands.
+     */
+    private final ExecutorService workers;
+
+    /**
+     * The completion of the last submitted command for every path with pending commands, keyed by the absolute normalized path.
+     * A new command waits for the entries of its paths and of the paths inside or above them, which the sorted keys let it find
+     * by looking up its ancestors and a range of keys instead of scanning every entry. Guarded by itself.
+     */
+    private final NavigableMap<String, CompletableFuture<Void>> lastCommands = new TreeMap<>();
+
+    /**
+     * The completions of the submitted commands that have not been executed yet.
+     */
+    private final Set<CompletableFuture<Void>> pendingCommands = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructs a new {@link ConcurrentCommandExecutor} executing commands with the specified executor on the specified number of worker threads.
+     *
+     * @param commandExecutor the executor each command is executed with
+     * @param parallelism     the number of worker threads
+     */
+    public ConcurrentCommandExecutor(CommandExecutor commandExecutor, int parallelism) {
+        this.commandExecutor = commandExecutor;
+        this.workers = Executors.newFixedThreadPool(parallelism);
+    }
+
+    /**
+     * Submits the command for execution after all previously submitted commands touching any of its files.
+     *
+     * @param commandLine the user input command line
+     * @return the future completed when the command has been executed, or completed exceptionally with a {@link CommandException}
+     */
+    public CompletableFuture<Void> submit(String commandLine) {
+        return submit(commandLine, () -> {
+            execute(commandLine);
+            return null;
+        });
+    }
+
+    /**
+     * Submits the command for execution after all previously submitted commands touching any of its files,
+     * capturing what it prints to the standard output through {@link CommandOutput}.
+     *
+     * @param commandLine the user input command line
+     * @return the future completed with the printed text when the command has been executed, or completed exceptionally with a {@link CommandException}
+     */
+    public CompletableFuture<String> submitCapturingOutput(String commandLine) {
+        return submit(commandLine, () -> {
+            try {
+                return CommandOutput.capture(() -> commandExecutor.executeCommand(commandLine));
+            } catch (CommandException e) {
+                throw new CompletionException(e);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(new CommandException(e));
+            }
+        });
+    }
+
+    private <T> CompletableFuture<T> submit(String commandLine, Supplier<T> task) {
+        Set<Path> paths = pathsOf(commandLine);
+
+        CompletableFuture<T> execution;
+        CompletableFuture<Void> completion;
+        synchronized (lastCommands) {
+            Set<CompletableFuture<Void>> predecessors = new HashSet<>();
+            for (Path path : paths) {
+                addSharingCommands(path, predecessors);
+            }
+
+            execution = CompletableFuture.allOf(predecessors.toArray(CompletableFuture[]::new)).thenApplyAsync(ignored -> task.get(), workers);
+            completion = execution.handle((result, e) -> null);
+            for (Path path : paths) {
+                lastCommands.put(path.toString(), completion);
+            }
+        }
+
+        pendingCommands.add(completion);
+        completion.thenRun(() -> {
+            pendingCommands.remove(completion);
+            synchronized (lastCommands) {
+                for (Path path : paths) {
+                    lastCommands.remove(path.toString(), completion);
+                }
+            }
+        });
+        return execution;
+    }
+
+    /**
+     * Waits for the submitted commands to complete and stops the worker threads.
+     */
+    @Override
+    public void close() {
+        CompletableFuture.allOf(pendingCommands.toArray(CompletableFuture[]::new)).join();
+        workers.shutdown();
+        try {
+            while (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.log(Level.INFO, "Waiting for the submitted commands to complete...");
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void execute(String commandLine) {
+        try {
+            commandExecutor.executeCommand(commandLine);
+        } catch (CommandException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Adds the last pending commands sharing the path: the command on the path itself, on the directories above it and on the files inside it.
+     * Must be called holding the lock of the last commands.
+     *
+     * @param path     the absolute normalized path
+     * @param commands the set the completions of the commands are added to
+     */
+    private void addSharingCommands(Path path, Set<CompletableFuture<Void>> commands) {
+        for (Path current = path; current != null; current = current.getParent()) {
+            CompletableFuture<Void> command = lastCommands.get(current.toString());
+            if (command != null) {
+                commands.add(command);
+            }
+        }
+        String separator = path.getFileSystem().getSeparator();
+        String prefix = path.toString().endsWith(separator) ? path.toString() : path + separator;
+        String end = prefix.substring(0, prefix.length() - 1) + (char) (prefix.charAt(prefix.length() - 1) + 1);
+        commands.addAll(lastCommands.subMap(prefix, end).values());
+    }
+
+    private Set<Path> pathsOf(String commandLine) {
+        Set<Path> paths = new LinkedHashSet<>();
+        for (String path : commandExecutor.affectedPaths(commandLine)) {
+            try {
+                paths.add(Paths.get(path).toAbsolutePath().normalize());
+            } catch (InvalidPathException e) {
+                logger.log(Level.WARNING, "Invalid path in command, ordering is not guaranteed: {0}", path);
+            }
+        }
+        return paths;
+    }
+}
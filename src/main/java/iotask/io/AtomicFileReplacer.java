@@ -0,0 +1,180 @@
+package main.java.iotask.io;
+
+import main.java.iotask.config.ApplicationConfig;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+import static java.nio.file.StandardCopyOption.*;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * A utility class for replacing the content of a file so that a crash or a concurrent reader never sees a partially written file.
+ * The new content is written to a temporary file in the directory of the target file, which then replaces the target file
+ * with an atomic rename, so readers see either the old or the new version of the file.
+ * If fsync is enabled, the temporary file is synchronized to the disk before the rename and the directory after it,
+ * so the new version also survives a power failure.
+ * A target reached through a symbolic link is resolved first, so the file the link points to is replaced and the link is kept.
+ * The rename gives the target a new inode: the permissions are copied from the old file, but a hard link to the old file
+ * keeps the old content, and the new file is owned by the user running the process.
+ *
+ * @author Nikita Gubin
+ */
+public final class AtomicFileReplacer {
+
+    /**
+     * The logger for {@link AtomicFileReplacer} class.
+     */
+    private static final Logger logger = Logger.getLogger(AtomicFileReplacer.class.getName());
+
+    /**
+     * The setting enabling the synchronization of the replaced files and their directories to the disk.
+     */
+    public static final String FSYNC_SETTING = "iotask.replace.fsync";
+
+    /**
+     * Whether the replaced files and their directories are synchronized to the disk.
+     */
+    private static final boolean FSYNC = ApplicationConfig.getBoolean(FSYNC_SETTING, false);
+
+    private AtomicFileReplacer() {
+    }
+
+    /**
+     * Replaces the content of the target file with the content written by the writer to a temporary file.
+     * The temporary file gets the permissions of the target file and is deleted if the writer fails or discards it.
+     *
+     * @param target the path to the file to replace
+     * @param writer the writer of the new content
+     * @return true if the file was replaced, false if the writer discarded the new content
+     * @throws IOException if an I/O error occurs writing the new content or replacing the file
+     */
+    public static boolean replace(Path target, ContentWriter writer) throws IOException {
+        Path file = resolve(target);
+        Path temp = createSiblingTempFile(file);
+        boolean moved = false;
+        try {
+            if (!writer.write(temp)) {
+                return false;
+            }
+            if (FSYNC) {
+                force(temp);
+            }
+            move(temp, file);
+            moved = true;
+            FileVersions.changed(target);
+            if (!file.equals(target)) {
+                FileVersions.changed(file);
+            }
+            if (FSYNC) {
+                forceDirectory(file);
+            }
+            return true;
+        } finally {
+            if (!moved) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * Resolves the symbolic links of the path of an existing file, so the file they point to is replaced instead of the links.
+     *
+     * @param path the path to the file
+     * @return the real path to the file, or the path itself if the file does not exist
+     * @throws IOException if an I/O error occurs resolving the path
+     */
+    private static Path resolve(Path path) throws IOException {
+        try {
+            return path.toRealPath();
+        } catch (NoSuchFileException e) {
+            return path;
+        }
+    }
+
+    /**
+     * Creates an empty temporary file in the directory of the specified file, with the permissions of the file if it exists.
+     *
+     * @param path the file the temporary file is created for
+     * @return the path to the temporary file
+     * @throws IOException if an I/O error occurs creating the file
+     */
+    private static Path createSiblingTempFile(Path path) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            if (Files.exists(path)) {
+                Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(path));
+            }
+        } catch (UnsupportedOperationException e) {
+            logger.log(Level.FINE, "POSIX file permissions are not supported: {0}", path);
+        }
+        return temp;
+    }
+
+    /**
+     * Replaces the target file with the source file, atomically if the file system supports it.
+     *
+     * @param source the file to move
+     * @param target the file to replace
+     * @throws IOException if an I/O error occurs moving the file
+     */
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, REPLACE_EXISTING, ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            logger.log(Level.WARNING, "Atomic move is not supported, replacing the file non-atomically: {0}", target);
+            Files.move(source, target, REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Synchronizes the content and the metadata of the file to the disk.
+     *
+     * @param path the file to synchronize
+     * @throws IOException if an I/O error occurs opening or synchronizing the file
+     */
+    private static void force(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Synchronizes the directory entry of the file to the disk.
+     * Some platforms cannot open a directory for synchronization, in which case the rename is left to the file system.
+     *
+     * @param path the file whose directory is synchronized
+     */
+    private static void forceDirectory(Path path) {
+        Path directory = path.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Could not synchronize the directory: {0}", directory);
+        }
+    }
+
+    /**
+     * A writer of the new content of a replaced file.
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+
+        /**
+         * Writes the new content to the temporary file.
+         *
+         * @param temp the path to the temporary file
+         * @return true to replace the target file with the temporary file, false to discard it
+         * @throws IOException if an I/O error occurs writing the content
+         */
+        boolean write(Path temp) throws IOException;
+    }
+}
@@ -0,0 +1,78 @@
+package main.java.iotask.io;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A fixed pool of worker threads with a bounded queue, used to fan out the files found by a tree walk.
+ * Submitting blocks while the workers are busy and the queue is full, so a walk over a huge tree does not queue every file in memory.
+ *
+ * @author Nikita Gubin
+ * @see TreeCopier
+ * @see TreeDeleter
+ */
+final class BoundedWorkers implements AutoCloseable {
+
+    /**
+     * The number of tasks waiting for a worker per worker.
+     */
+    private static final int QUEUED_TASKS_PER_WORKER = 4;
+
+    /**
+     * The pool of worker threads.
+     */
+    private final ExecutorService workers;
+
+    /**
+     * The permits of the running and queued tasks.
+     */
+    private final Semaphore slots;
+
+    /**
+     * The number of permits of the running and queued tasks.
+     */
+    private final int permits;
+
+    /**
+     * Constructs a new {@link BoundedWorkers} with the specified number of worker threads.
+     *
+     * @param parallelism the number of worker threads
+     */
+    BoundedWorkers(int parallelism) {
+        int threads = Math.max(1, parallelism);
+        this.workers = Executors.newFixedThreadPool(threads);
+        this.permits = threads * (1 + QUEUED_TASKS_PER_WORKER);
+        this.slots = new Semaphore(permits);
+    }
+
+    /**
+     * Submits the task, waiting while the queue is full.
+     *
+     * @param task the task
+     */
+    void execute(Runnable task) {
+        slots.acquireUninterruptibly();
+        try {
+            workers.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    slots.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for the submitted tasks to complete and stops the worker threads.
+     */
+    @Override
+    public void close() {
+        slots.acquireUninterruptibly(permits);
+        workers.shutdown();
+    }
+}
@@ -0,0 +1,112 @@
+package main.java.iotask.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * A class for creating many files with their initial content on a bounded pool of worker threads.
+ * The parent directories are created once per bulk creation: a directory already known to exist is not checked again,
+ * so creating many files under a few directories costs a single open and write per file.
+ *
+ * @author Nikita Gubin
+ */
+public final class BulkFileCreator {
+
+    /**
+     * The logger for {@link BulkFileCreator} class.
+     */
+    private static final Logger logger = Logger.getLogger(BulkFileCreator.class.getName());
+
+    /**
+     * The maximum number of files created at once.
+     */
+    private final int parallelism;
+
+    /**
+     * Constructs a new {@link BulkFileCreator}.
+     *
+     * @param parallelism the maximum number of files created at once
+     */
+    public BulkFileCreator(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Creates the files, replacing the content of the existing ones.
+     * A file that cannot be created is logged and counted as failed, the other files are still created.
+     *
+     * @param files the files to create
+     * @return the outcome of the creation
+     */
+    public Result create(Iterable<FileSpec> files) {
+        Map<Path, Boolean> knownDirectories = new ConcurrentHashMap<>();
+        AtomicLong created = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+
+        try (BoundedWorkers workers = new BoundedWorkers(parallelism)) {
+            for (FileSpec file : files) {
+                workers.execute(() -> {
+                    try {
+                        byte[] content = file.text() != null ? file.text().getBytes(StandardCharsets.UTF_8) : new byte[0];
+                        Path parent = file.path().toAbsolutePath().getParent();
+                        if (parent != null) {
+                            knownDirectories.computeIfAbsent(parent, BulkFileCreator::createDirectories);
+                        }
+                        try (OutputStream out = Compression.of(file.path()).newOutputStream(file.path(), CREATE, TRUNCATE_EXISTING, WRITE)) {
+                            out.write(content);
+                        } finally {
+                            FileVersions.changed(file.path());
+                        }
+                        created.incrementAndGet();
+                        bytes.addAndGet(content.length);
+                    } catch (IOException | UncheckedIOException e) {
+                        failed.incrementAndGet();
+                        logger.log(Level.SEVERE, "Error occurred creating " + file.path(), e);
+                    }
+                });
+            }
+        }
+        return new Result(created.get(), failed.get(), bytes.get());
+    }
+
+    private static Boolean createDirectories(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            return Boolean.TRUE;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A file to create.
+     *
+     * @param path the path to the file
+     * @param text the initial content of the file, or null for an empty file
+     */
+    public record FileSpec(Path path, String text) {
+    }
+
+    /**
+     * The outcome of a bulk creation.
+     *
+     * @param created the number of files created
+     * @param failed  the number of files that could not be created
+     * @param bytes   the number of bytes written
+     */
+    public record Result(long created, long failed, long bytes) {
+    }
+}
@@ -0,0 +1,191 @@
+package main.java.iotask.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.*;
+import static main.java.iotask.io.StreamingLineEditor.LINE_SEPARATOR;
+
+/**
+ * A {@link LineEditor} that edits recently used files in memory through a {@link FileContentCache}.
+ * The target line is found by its cached offset and the edit is applied to the cached content, so a hot file is never read from the disk again.
+ * Every edit is written through to the file: inserted and deleted lines rewrite the file from the cached content through {@link AtomicFileReplacer},
+ * appended lines are written to the end of the file only. Files too large for the cache are edited by {@link StreamingLineEditor} and {@link FileAppender}.
+ * An entry is edited only while it is locked and still {@link FileContentCache#isCurrent(Path, FileContentCache.Entry) current}, otherwise the file is looked up again.
+ *
+ * @author Nikita Gubin
+ */
+public final class CachedLineEditor implements LineEditor {
+
+    /**
+     * The cache of the file content.
+     */
+    private final FileContentCache cache;
+
+    /**
+     * The editor used for files too large for the cache.
+     */
+    private final LineEditor fallbackEditor = new StreamingLineEditor();
+
+    /**
+     * Constructs a new {@link CachedLineEditor} editing files through the specified cache.
+     *
+     * @param cache the cache of the file content
+     */
+    public CachedLineEditor(FileContentCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void insertLine(Path path, int lineNumber, String text) throws IOException {
+        while (true) {
+            FileContentCache.Entry entry = cache.get(path);
+            if (entry == null) {
+                fallbackEditor.insertLine(path, lineNumber, text);
+                return;
+            }
+
+            synchronized (entry) {
+                if (!cache.isCurrent(path, entry)) {
+                    continue;
+                }
+                byte[] line = StreamingLineEditor.toLine(text);
+                if (lineNumber <= entry.lineCount() || lineNumber == entry.lineCount() + 1 && entry.isTerminated()) {
+                    editAndRewrite(path, entry, () -> entry.insertLines(lineNumber, line));
+                } else {
+                    int separators = lineNumber - 1 - entry.lineCount() + (entry.isTerminated() ? 0 : 1);
+                    ByteBuffer tail = ByteBuffer.allocate(separators * LINE_SEPARATOR.length + line.length);
+                    for (int i = 0; i < separators; i++) {
+                        tail.put(LINE_SEPARATOR);
+                    }
+                    editAndRewrite(path, entry, () -> entry.append(tail.put(line).array()));
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean deleteLine(Path path, int lineNumber) throws IOException {
+        while (true) {
+            FileContentCache.Entry entry = cache.get(path);
+            if (entry == null) {
+                return fallbackEditor.deleteLine(path, lineNumber);
+            }
+
+            synchronized (entry) {
+                if (!cache.isCurrent(path, entry)) {
+                    continue;
+                }
+                if (lineNumber > entry.lineCount()) {
+                    return false;
+                }
+                editAndRewrite(path, entry, () -> entry.deleteLine(lineNumber));
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Appends the text as a new line at the end of the file, terminating the last line first if needed.
+     *
+     * @param path the path to the file
+     * @param text the text to append
+     * @throws IOException if an I/O error occurs reading or writing the file
+     * @see FileAppender#appendLine(Path, String)
+     */
+    public void appendLine(Path path, String text) throws IOException {
+        while (true) {
+            FileContentCache.Entry entry = cache.get(path);
+            if (entry == null) {
+                FileAppender.appendLine(path, text);
+                return;
+            }
+
+            synchronized (entry) {
+                if (!cache.isCurrent(path, entry)) {
+                    continue;
+                }
+                byte[] line = StreamingLineEditor.toLine(text);
+                ByteBuffer bytes = ByteBuffer.allocate((entry.isTerminated() ? 0 : LINE_SEPARATOR.length) + line.length);
+                if (!entry.isTerminated()) {
+                    bytes.put(LINE_SEPARATOR);
+                }
+                bytes.put(line).flip();
+
+                try (FileChannel channel = FileChannel.open(path, WRITE, APPEND)) {
+                    while (bytes.hasRemaining()) {
+                        channel.write(bytes);
+                    }
+                    FileVersions.changed(path);
+                    entry.append(bytes.array());
+                    entry.touched(Files.getLastModifiedTime(path), FileVersions.of(path));
+                } catch (IOException | RuntimeException e) {
+                    FileVersions.changed(path);
+                    cache.invalidate(path);
+                    throw e;
+                }
+                cache.resized(path, entry);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Replaces the entire content of the file with the text as a single line, caching the new content.
+     *
+     * @param path the path to the file
+     * @param text the new text content for the file
+     * @throws IOException if an I/O error occurs writing the file
+     */
+    public void replaceContent(Path path, String text) throws IOException {
+        byte[] content = StreamingLineEditor.toLine(text);
+        try {
+            AtomicFileReplacer.replace(path, temp -> {
+                Files.write(temp, content);
+                return true;
+            });
+        } catch (IOException e) {
+            cache.invalidate(path);
+            throw e;
+        }
+        cache.put(path, FileContentCache.Entry.of(content, Files.getLastModifiedTime(path), FileVersions.of(path)));
+    }
+
+    /**
+     * Applies the edit to the cached content and rewrites the file with the edited content.
+     * The entry is dropped from the cache if the file cannot be rewritten, before its lock is released,
+     * so the threads waiting for the lock see that it is no longer current and read the file again instead of editing the failed content.
+     *
+     * @param path  the path to the file
+     * @param entry the locked entry of the file
+     * @param edit  the edit of the cached content
+     * @throws IOException if an I/O error occurs writing the file
+     */
+    private void editAndRewrite(Path path, FileContentCache.Entry entry, Runnable edit) throws IOException {
+        try {
+            edit.run();
+            AtomicFileReplacer.replace(path, temp -> {
+                try (OutputStream out = Files.newOutputStream(temp)) {
+                    out.write(entry.buffer(), 0, entry.length());
+                }
+                return true;
+            });
+            entry.touched(Files.getLastModifiedTime(path), FileVersions.of(path));
+        } catch (IOException | RuntimeException e) {
+            cache.invalidate(path);
+            throw e;
+        }
+        cache.resized(path, entry);
+    }
+}
@@ -0,0 +1,352 @@
+package main.java.iotask.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * A class for finding the lines of a text file holding a literal pattern, scanning the file in parallel on a {@link ForkJoinPool}.
+ * The file is split in halves at line starts until the ranges are small enough, every range is scanned through memory-mapped windows,
+ * and the ranges are joined back adding the line feeds of the preceding ranges to the line numbers of the following ones.
+ * A line is reported once, at the offset of its first match. Lines are terminated by {@code '\n'}, so a pattern never spans lines.
+ *
+ * @author Nikita Gubin
+ */
+public final class ChunkedSearcher {
+
+    /**
+     * The size of the ranges scanned without splitting them further.
+     */
+    private static final long CHUNK_SIZE = 16L * 1024 * 1024;
+
+    /**
+     * The size of the windows a range is mapped in.
+     */
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * The size of the buffer used for finding the line start a range is split at.
+     */
+    private static final int PROBE_SIZE = 4 * 1024;
+
+    /**
+     * The line feed byte terminating every line of the file.
+     */
+    private static final byte LF = '\n';
+
+    /**
+     * The word with the lowest bit of every byte set, repeating a byte in every byte of a word when multiplied by it.
+     */
+    private static final long REPEATED_BYTE = 0x0101010101010101L;
+
+    /**
+     * The pool scanning the ranges.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The maximum number of matches returned, further matching lines are only counted.
+     */
+    private final int maxMatches;
+
+    /**
+     * Constructs a new {@link ChunkedSearcher}.
+     *
+     * @param pool       the pool scanning the ranges
+     * @param maxMatches the maximum number of matches returned, further matching lines are only counted
+     */
+    public ChunkedSearcher(ForkJoinPool pool, int maxMatches) {
+        this.pool = pool;
+        this.maxMatches = maxMatches;
+    }
+
+    /**
+     * Finds the lines of the file holding the pattern.
+     *
+     * @param path    the path to the file
+     * @param pattern the non-empty literal text to find, without line feeds
+     * @return the matching lines in the file order, at most the maximum number of matches, and the number of all matching lines
+     * @throws IOException if an I/O error occurs reading the file
+     */
+    public Result search(Path path, String pattern) throws IOException {
+        byte[] needle = pattern.getBytes(StandardCharsets.UTF_8);
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+            Range range = pool.invoke(new SearchTask(channel, needle, 0, channel.size()));
+            List<Match> matches = new ArrayList<>(range.matches.size());
+            for (Match match : range.matches) {
+                matches.add(new Match(match.lineNumber() + 1, match.lineOffset(), match.offset()));
+            }
+            return new Result(matches, range.matchCount);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Reads the matching lines, each up to its line feed or the maximum length, through a single channel and buffer.
+     *
+     * @param path      the path to the file
+     * @param matches   the matches whose lines are read
+     * @param maxLength the maximum number of bytes read per line
+     * @return the text of every matching line, without the line terminator, in the order of the matches
+     * @throws IOException if an I/O error occurs reading the file
+     */
+    public static List<String> readLines(Path path, List<Match> matches, int maxLength) throws IOException {
+        List<String> lines = new ArrayList<>(matches.size());
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(maxLength);
+            for (Match match : matches) {
+                buffer.clear();
+                int read;
+                do {
+                    read = channel.read(buffer, match.lineOffset() + buffer.position());
+                } while (read > 0 && buffer.hasRemaining());
+                int length = 0;
+                while (length < buffer.position() && buffer.get(length) != LF) {
+                    length++;
+                }
+                if (length > 0 && buffer.get(length - 1) == '\r') {
+                    length--;
+                }
+                lines.add(new String(buffer.array(), 0, length, StandardCharsets.UTF_8));
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * A task scanning a range of the file that starts at a line start, splitting it in halves while it is larger than a chunk.
+     */
+    private final class SearchTask extends RecursiveTask<Range> {
+
+        /**
+         * The serialization version of the task, which is serializable as every {@link java.util.concurrent.ForkJoinTask}.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The channel of the searched file.
+         */
+        private final FileChannel channel;
+
+        /**
+         * The encoded pattern.
+         */
+        private final byte[] needle;
+
+        /**
+         * The offset of the range start, which is a line start.
+         */
+        private final long from;
+
+        /**
+         * The offset following the range end.
+         */
+        private final long to;
+
+        /**
+         * The offset of the start of the line being scanned.
+         */
+        private long lineStart;
+
+        /**
+         * Whether the line being scanned has already matched.
+         */
+        private boolean lineMatched;
+
+        private SearchTask(FileChannel channel, byte[] needle, long from, long to) {
+            this.channel = channel;
+            this.needle = needle;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Range compute() {
+            try {
+                if (to - from > CHUNK_SIZE) {
+                    long split = nextLineStart(from + (to - from) / 2);
+                    if (split < to) {
+                        SearchTask right = new SearchTask(channel, needle, split, to);
+                        right.fork();
+                        Range left = new SearchTask(channel, needle, from, split).compute();
+                        return left.append(right.join(), maxMatches);
+                    }
+                }
+                return scan();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Finds the start of the first line beginning after the position.
+         *
+         * @param position the position within the range
+         * @return the offset following the first line feed at or after the position, or the range end if there is none
+         * @throws IOException if an I/O error occurs reading the file
+         */
+        private long nextLineStart(long position) throws IOException {
+            ByteBuffer probe = ByteBuffer.allocate(PROBE_SIZE);
+            while (position < to) {
+                probe.clear().limit((int) Math.min(PROBE_SIZE, to - position));
+                int read = channel.read(probe, position);
+                if (read <= 0) {
+                    return to;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (probe.get(i) == LF) {
+                        return position + i + 1;
+                    }
+                }
+                position += read;
+            }
+            return to;
+        }
+
+        /**
+         * Scans the range window by window, counting the line feeds and recording the first match of every line.
+         * The window is read eight bytes at a time and only the bytes that are line feeds or the first byte of the pattern are looked at.
+         * A window is mapped with the pattern length of overlap, so a match crossing the window end is still found.
+         *
+         * @return the scanned range, with line numbers counted from the range start
+         * @throws IOException if an I/O error occurs reading the file
+         */
+        private Range scan() throws IOException {
+            Range range = new Range();
+            long firstBytes = (needle[0] & 0xFFL) * REPEATED_BYTE;
+            lineStart = from;
+            lineMatched = false;
+            for (long windowStart = from; windowStart < to; windowStart += WINDOW_SIZE) {
+                int windowLength = (int) Math.min(WINDOW_SIZE, to - windowStart);
+                int mappedLength = (int) Math.min(WINDOW_SIZE + needle.length, to - windowStart);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, mappedLength);
+                window.order(ByteOrder.LITTLE_ENDIAN);
+
+                int i = 0;
+                for (; i + Long.BYTES <= windowLength; i += Long.BYTES) {
+                    long word = window.getLong(i);
+                    long candidates = LineCounter.lineFeedMask(word) | LineCounter.byteMask(word, firstBytes);
+                    while (candidates != 0) {
+                        visit(range, window, windowStart, i + (Long.numberOfTrailingZeros(candidates) >>> 3), mappedLength);
+                        candidates &= candidates - 1;
+                    }
+                }
+                for (; i < windowLength; i++) {
+                    visit(range, window, windowStart, i, mappedLength);
+                }
+            }
+            return range;
+        }
+
+        /**
+         * Looks at a byte that may be a line feed or the start of a match.
+         *
+         * @param range        the range being scanned
+         * @param window       the mapped window
+         * @param windowStart  the offset of the window start
+         * @param index        the index of the byte in the window
+         * @param mappedLength the number of mapped bytes of the window
+         */
+        private void visit(Range range, MappedByteBuffer window, long windowStart, int index, int mappedLength) {
+            byte b = window.get(index);
+            if (b == LF) {
+                range.lineFeeds++;
+                lineStart = windowStart + index + 1;
+                lineMatched = false;
+            } else if (b == needle[0] && !lineMatched && matchesAt(window, index, mappedLength)) {
+                lineMatched = true;
+                range.add(new Match(range.lineFeeds, lineStart, windowStart + index), maxMatches);
+            }
+        }
+
+        private boolean matchesAt(MappedByteBuffer window, int index, int mappedLength) {
+            if (index + needle.length > mappedLength) {
+                return false;
+            }
+            for (int j = 1; j < needle.length; j++) {
+                if (window.get(index + j) != needle[j]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * The matches of a scanned range, with line numbers counted from the range start.
+     */
+    private static final class Range {
+
+        /**
+         * The number of line feeds of the range.
+         */
+        private long lineFeeds;
+
+        /**
+         * The number of matching lines of the range.
+         */
+        private long matchCount;
+
+        /**
+         * The first matches of the range, at most the maximum number of matches.
+         */
+        private final List<Match> matches = new ArrayList<>();
+
+        private void add(Match match, int maxMatches) {
+            matchCount++;
+            if (matches.size() < maxMatches) {
+                matches.add(match);
+            }
+        }
+
+        /**
+         * Joins the following range to this one.
+         *
+         * @param next       the range following this one
+         * @param maxMatches the maximum number of matches kept
+         * @return this range extended by the following one
+         */
+        private Range append(Range next, int maxMatches) {
+            for (Match match : next.matches) {
+                if (matches.size() == maxMatches) {
+                    break;
+                }
+                matches.add(new Match(lineFeeds + match.lineNumber(), match.lineOffset(), match.offset()));
+            }
+            lineFeeds += next.lineFeeds;
+            matchCount += next.matchCount;
+            return this;
+        }
+    }
+
+    /**
+     * A line holding the pattern.
+     *
+     * @param lineNumber the one-based number of the line
+     * @param lineOffset the offset of the line start
+     * @param offset     the offset of the first match in the line
+     */
+    public record Match(long lineNumber, long lineOffset, long offset) {
+    }
+
+    /**
+     * The outcome of a search.
+     *
+     * @param matches    the matching lines in the file order, at most the maximum number of matches
+     * @param matchCount the number of all matching lines
+     */
+    public record Result(List<Match> matches, long matchCount) {
+    }
+}
@@ -0,0 +1,131 @@
+package main.java.iotask.io;
+
+import main.java.iotask.config.ApplicationConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * An enumeration of the formats the text files are stored in, chosen by the file name: files ending with {@code .gz} are gzip-compressed.
+ * The streams of a compressed file are compressed and decompressed on the fly through {@link java.util.zip}, with the level and the buffer size
+ * given by the application settings, so the streaming editors work on compressed files exactly as on plain ones, trading CPU time for disk bandwidth.
+ * A gzip file may hold several members, which are read as their concatenation, so a line is appended by writing a new member
+ * instead of compressing the whole file again. The content is stored exactly as written, so a transcoded file decompresses to the bytes of its source.
+ *
+ * @author Nikita Gubin
+ * @see FileAppender
+ */
+public enum Compression {
+
+    /**
+     * The file is stored as is.
+     */
+    NONE {
+        @Override
+        public InputStream newInputStream(Path path) throws IOException {
+            return Files.newInputStream(path);
+        }
+
+        @Override
+        public OutputStream newOutputStream(Path path, OpenOption... options) throws IOException {
+            return Files.newOutputStream(path, options);
+        }
+    },
+
+    /**
+     * The file is stored as one or more gzip members.
+     */
+    GZIP {
+        @Override
+        public InputStream newInputStream(Path path) throws IOException {
+            return new GZIPInputStream(Files.newInputStream(path), BUFFER_SIZE);
+        }
+
+        @Override
+        public OutputStream newOutputStream(Path path, OpenOption... options) throws IOException {
+            return new GZIPOutputStream(Files.newOutputStream(path, options), BUFFER_SIZE) {
+                {
+                    def.setLevel(LEVEL);
+                }
+            };
+        }
+    };
+
+    /**
+     * The setting holding the gzip compression level, from 0 (no compression) to 9 (best compression).
+     */
+    public static final String GZIP_LEVEL_SETTING = "iotask.gzip.level";
+
+    /**
+     * The setting holding the size of the buffers of the gzip streams in bytes.
+     */
+    public static final String GZIP_BUFFER_SIZE_SETTING = "iotask.gzip.bufferSize";
+
+    /**
+     * The suffix of the names of the gzip-compressed files.
+     */
+    private static final String GZIP_SUFFIX = ".gz";
+
+    /**
+     * The gzip compression level.
+     */
+    private static final int LEVEL = ApplicationConfig.getInt(GZIP_LEVEL_SETTING, 6);
+
+    /**
+     * The size of the buffers of the gzip streams.
+     */
+    private static final int BUFFER_SIZE = ApplicationConfig.getInt(GZIP_BUFFER_SIZE_SETTING, 64 * 1024);
+
+    /**
+     * Returns the format of the file with the specified path.
+     *
+     * @param path the path to the file
+     * @return {@link #GZIP} if the file name ends with {@code .gz}, {@link #NONE} otherwise
+     */
+    public static Compression of(Path path) {
+        Path fileName = path.getFileName();
+        return fileName != null && fileName.toString().endsWith(GZIP_SUFFIX) ? GZIP : NONE;
+    }
+
+    /**
+     * Copies the content of the source file to the destination file, decompressing and compressing it according to the formats of the files.
+     *
+     * @param source      the path to the source file
+     * @param destination the path to the destination file, replaced if it exists
+     * @return the number of bytes written to the destination file
+     * @throws IOException if an I/O error occurs reading or writing the files
+     */
+    public static long transcode(Path source, Path destination) throws IOException {
+        try (InputStream in = of(source).newInputStream(source); OutputStream out = of(destination).newOutputStream(destination, CREATE, TRUNCATE_EXISTING, WRITE)) {
+            in.transferTo(out);
+        }
+        return Files.size(destination);
+    }
+
+    /**
+     * Opens a stream reading the content of the file.
+     *
+     * @param path the path to the file
+     * @return the stream of the decompressed content
+     * @throws IOException if an I/O error occurs opening the file or reading the gzip header
+     */
+    public abstract InputStream newInputStream(Path path) throws IOException;
+
+    /**
+     * Opens a stream writing the content of the file. A compressed stream writes a complete gzip member when it is closed.
+     *
+     * @param path    the path to the file
+     * @param options the options specifying how the file is opened
+     * @return the stream compressing the content
+     * @throws IOException if an I/O error occurs opening the file
+     */
+    public abstract OutputStream newOutputStream(Path path, OpenOption... options) throws IOException;
+}
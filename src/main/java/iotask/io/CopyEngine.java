@@ -0,0 +1,184 @@
+package main.java.iotask.io;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * An enumeration of the strategies for copying a file.
+ * Every strategy replaces the content of the destination file if it exists and returns the number of bytes written.
+ *
+ * @author Nikita Gubin
+ */
+public enum CopyEngine {
+
+    /**
+     * Copies the file with {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)},
+     * which lets the operating system move the bytes without copying them into the JVM (sendfile).
+     */
+    TRANSFER {
+        @Override
+        public long copy(Path source, Path destination) throws IOException {
+            try (FileChannel in = FileChannel.open(source, READ); FileChannel out = FileChannel.open(destination, WRITE, CREATE, TRUNCATE_EXISTING)) {
+                long size = in.size();
+                long position = 0;
+                while (position < size) {
+                    long transferred = in.transferTo(position, size - position, out);
+                    if (transferred == 0) {
+                        break;
+                    }
+                    position += transferred;
+                }
+                return position;
+            }
+        }
+    },
+
+    /**
+     * Copies the file by mapping it into memory chunk by chunk and writing the mapped chunks to the destination file.
+     */
+    MMAP {
+        @Override
+        public long copy(Path source, Path destination) throws IOException {
+            try (FileChannel in = FileChannel.open(source, READ); FileChannel out = FileChannel.open(destination, WRITE, CREATE, TRUNCATE_EXISTING)) {
+                long size = in.size();
+                long position = 0;
+                while (position < size) {
+                    MappedByteBuffer chunk = in.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MMAP_CHUNK_SIZE, size - position));
+                    while (chunk.hasRemaining()) {
+                        out.write(chunk);
+                    }
+                    position += chunk.capacity();
+                }
+                return position;
+            }
+        }
+    },
+
+    /**
+     * Copies the file line by line with {@link BufferedReader} and {@link BufferedWriter}.
+     * Every line of the copy is terminated by the platform line separator.
+     */
+    BUFFERED {
+        @Override
+        public long copy(Path source, Path destination) throws IOException {
+            try (BufferedReader reader = new BufferedReader(new FileReader(source.toFile())); BufferedWriter writer = new BufferedWriter(new FileWriter(destination.toFile()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    writer.write(line);
+                    writer.newLine();
+                }
+            }
+            return Files.size(destination);
+        }
+    },
+
+    /**
+     * Copies the file by comparing it with the existing destination file block by block and writing only the blocks that differ,
+     * then truncating the destination file to the size of the source file. Both files are read in full, but a destination file that is
+     * an older copy of an append-only source, such as a log file, only gets the appended tail written.
+     */
+    DELTA {
+        @Override
+        public long copy(Path source, Path destination) throws IOException {
+            try (FileChannel in = FileChannel.open(source, READ); FileChannel out = FileChannel.open(destination, READ, WRITE, CREATE)) {
+                ByteBuffer sourceBlock = ByteBuffer.allocateDirect(DELTA_BLOCK_SIZE);
+                ByteBuffer destinationBlock = ByteBuffer.allocateDirect(DELTA_BLOCK_SIZE);
+                long size = in.size();
+                long destinationSize = out.size();
+                long written = 0;
+                for (long position = 0; position < size; position += sourceBlock.limit()) {
+                    readBlock(in, position, sourceBlock);
+                    if (!sourceBlock.hasRemaining()) {
+                        break;
+                    }
+                    if (position < destinationSize) {
+                        readBlock(out, position, destinationBlock);
+                        if (sourceBlock.equals(destinationBlock)) {
+                            continue;
+                        }
+                    }
+                    for (long offset = position; sourceBlock.hasRemaining(); ) {
+                        offset += out.write(sourceBlock, offset);
+                    }
+                    written += sourceBlock.limit();
+                }
+                if (destinationSize > size) {
+                    out.truncate(size);
+                }
+                return written;
+            }
+        }
+
+        /**
+         * Reads the block of the file at the position into the buffer, which is flipped for reading the block.
+         *
+         * @param channel  the file channel
+         * @param position the position of the block
+         * @param block    the buffer receiving the block
+         * @throws IOException if an I/O error occurs reading the file
+         */
+        private void readBlock(FileChannel channel, long position, ByteBuffer block) throws IOException {
+            block.clear();
+            int read;
+            while (block.hasRemaining() && (read = channel.read(block, position + block.position())) != -1) {
+                if (read == 0) {
+                    break;
+                }
+            }
+            block.flip();
+        }
+    };
+
+    /**
+     * The size of the chunks mapped by the {@link CopyEngine#MMAP} engine.
+     */
+    private static final long MMAP_CHUNK_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * The size of the blocks compared and written by the {@link CopyEngine#DELTA} engine.
+     */
+    private static final int DELTA_BLOCK_SIZE = 64 * 1024;
+
+    /**
+     * Copies the source file to the destination file.
+     *
+     * @param source      the path to the source file
+     * @param destination the path to the destination file
+     * @return the number of bytes written to the destination file
+     * @throws IOException if an I/O error occurs reading or writing the files
+     */
+    public abstract long copy(Path source, Path destination) throws IOException;
+
+    /**
+     * Retrieves the engine by its case-insensitive name.
+     *
+     * @param name the name of the engine
+     * @return the engine with the specified name
+     * @throws IllegalArgumentException if there is no engine with the specified name
+     */
+    public static CopyEngine of(String name) {
+        return valueOf(name.toUpperCase());
+    }
+
+    /**
+     * Chooses the engine for a file of the specified size.
+     * Files smaller than the threshold are transferred by the operating system, larger ones are mapped chunk by chunk.
+     *
+     * @param size          the size of the source file in bytes
+     * @param mmapThreshold the size from which the file is copied by the {@link CopyEngine#MMAP} engine
+     * @return the engine for the file
+     */
+    public static CopyEngine forSize(long size, long mmapThreshold) {
+        return size >= mmapThreshold ? MMAP : TRANSFER;
+    }
+}
@@ -0,0 +1,218 @@
+package main.java.iotask.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+
+import static java.nio.file.StandardOpenOption.*;
+import static main.java.iotask.io.StreamingLineEditor.LINE_SEPARATOR;
+
+/**
+ * A utility class for appending a line to a text file without reading or rewriting the existing content.
+ * Only the last byte of the file is read to find out whether the last line is terminated, and only the new bytes are written.
+ * A line is appended to a gzip-compressed file as a new gzip member, so the existing members are never compressed again,
+ * and only the last members are decompressed to find the last byte of the content.
+ *
+ * @author Nikita Gubin
+ */
+public final class FileAppender {
+
+    /**
+     * The line feed byte terminating every line of the file.
+     */
+    private static final byte LF = '\n';
+
+    /**
+     * The magic bytes and the deflate compression method starting every gzip member.
+     */
+    private static final byte[] GZIP_MEMBER_START = {0x1f, (byte) 0x8b, 8};
+
+    /**
+     * The size of the blocks the end of a compressed file is searched backward by for the start of its last member.
+     */
+    private static final int SCAN_BLOCK_SIZE = 8 * 1024;
+
+    /**
+     * The result of {@link #lastDecompressedByte(Path, long)} when the members starting at the offset hold no content.
+     */
+    private static final int EMPTY_MEMBERS = -1;
+
+    /**
+     * The result of {@link #lastDecompressedByte(Path, long)} when no valid gzip member starts at the offset.
+     */
+    private static final int NOT_A_MEMBER = -2;
+
+    private FileAppender() {
+    }
+
+    /**
+     * Appends the text as a new line at the end of the file.
+     * If the last line of the file is not terminated, a line separator is written before the text.
+     *
+     * @param path the path to the file
+     * @param text the text to append
+     * @throws IOException if an I/O error occurs reading or writing the file
+     */
+    public static void appendLine(Path path, String text) throws IOException {
+        byte[] line = StreamingLineEditor.toLine(text);
+        try {
+            if (Compression.of(path) == Compression.GZIP) {
+                appendMember(path, line);
+            } else {
+                appendBytes(path, line);
+            }
+        } finally {
+            FileVersions.changed(path);
+        }
+    }
+
+    /**
+     * Appends the line to the end of the plain file, terminating its last line first if needed.
+     *
+     * @param path the path to the file
+     * @param line the encoded line to append
+     * @throws IOException if an I/O error occurs reading or writing the file
+     */
+    private static void appendBytes(Path path, byte[] line) throws IOException {
+        ByteBuffer buffer;
+        if (endsWithLineTerminator(path)) {
+            buffer = ByteBuffer.wrap(line);
+        } else {
+            buffer = ByteBuffer.allocate(LINE_SEPARATOR.length + line.length).put(LINE_SEPARATOR).put(line).flip();
+        }
+
+        try (FileChannel channel = FileChannel.open(path, WRITE, APPEND)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Appends the line to the gzip-compressed file as a new gzip member, terminating the last line of the content first if needed.
+     *
+     * @param path the path to the compressed file
+     * @param line the encoded line to append
+     * @throws IOException if an I/O error occurs reading or writing the file, or the file is not in the gzip format
+     */
+    private static void appendMember(Path path, byte[] line) throws IOException {
+        boolean terminated = compressedEndsWithLineTerminator(path);
+        try (OutputStream out = Compression.GZIP.newOutputStream(path, WRITE, APPEND)) {
+            if (!terminated) {
+                out.write(LINE_SEPARATOR);
+            }
+            out.write(line);
+        }
+    }
+
+    /**
+     * Checks whether the compressed file is empty or its content ends with a line feed, decompressing only its last members.
+     * The end of the file is searched backward for the bytes starting a gzip member, and the content is decompressed
+     * from the last of them that starts valid members up to the end of the file. The bytes found inside the compressed data
+     * fail to decompress and are skipped, so at worst the whole file is decompressed from its first member.
+     *
+     * @param path the path to the compressed file
+     * @return true if the file is empty or its content ends with a line feed, false otherwise
+     * @throws IOException if an I/O error occurs reading the file, or the file is not in the gzip format
+     */
+    static boolean compressedEndsWithLineTerminator(Path path) throws IOException {
+        boolean foundMember = false;
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+            long size = channel.size();
+            ByteBuffer block = ByteBuffer.allocate(SCAN_BLOCK_SIZE + GZIP_MEMBER_START.length - 1);
+            for (long blockEnd = size; blockEnd > 0; blockEnd -= SCAN_BLOCK_SIZE) {
+                long blockStart = Math.max(0, blockEnd - SCAN_BLOCK_SIZE);
+                block.clear().limit((int) (Math.min(size, blockEnd + GZIP_MEMBER_START.length - 1) - blockStart));
+                int read = 0;
+                while (block.hasRemaining() && read != -1) {
+                    read = channel.read(block, blockStart + block.position());
+                }
+                for (int i = (int) (blockEnd - blockStart) - 1; i >= 0; i--) {
+                    if (startsMember(block, i)) {
+                        int lastByte = lastDecompressedByte(path, blockStart + i);
+                        if (lastByte >= 0) {
+                            return lastByte == LF;
+                        }
+                        foundMember |= lastByte == EMPTY_MEMBERS;
+                    }
+                }
+            }
+            if (size == 0 || foundMember) {
+                return true;
+            }
+        }
+        throw new ZipException("Not in GZIP format: " + path);
+    }
+
+    /**
+     * Checks whether the bytes starting a gzip member are found at the specified index of the block.
+     *
+     * @param block the block read from the file
+     * @param index the index in the block
+     * @return true if the block holds the bytes starting a member at the index
+     */
+    private static boolean startsMember(ByteBuffer block, int index) {
+        if (index + GZIP_MEMBER_START.length > block.position()) {
+            return false;
+        }
+        for (int i = 0; i < GZIP_MEMBER_START.length; i++) {
+            if (block.get(index + i) != GZIP_MEMBER_START[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decompresses the members of the file from the specified offset up to the end of the file.
+     *
+     * @param path   the path to the compressed file
+     * @param offset the offset of the first member
+     * @return the last decompressed byte, {@link #EMPTY_MEMBERS} if the members are empty, or {@link #NOT_A_MEMBER} if no valid member starts at the offset
+     * @throws IOException if an I/O error occurs reading the file
+     */
+    private static int lastDecompressedByte(Path path, long offset) throws IOException {
+        try (InputStream compressed = Files.newInputStream(path)) {
+            compressed.skipNBytes(offset);
+            try (InputStream in = new GZIPInputStream(compressed)) {
+                byte[] buffer = new byte[SCAN_BLOCK_SIZE];
+                int lastByte = EMPTY_MEMBERS;
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    if (read > 0) {
+                        lastByte = buffer[read - 1] & 0xff;
+                    }
+                }
+                return lastByte;
+            }
+        } catch (ZipException | EOFException e) {
+            return NOT_A_MEMBER;
+        }
+    }
+
+    /**
+     * Checks whether the file is empty or its last line is terminated by reading only the last byte of the file.
+     *
+     * @param path the path to the file
+     * @return true if the file is empty or ends with a line feed, false otherwise
+     * @throws IOException if an I/O error occurs reading the file
+     */
+    static boolean endsWithLineTerminator(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return true;
+            }
+            ByteBuffer lastByte = ByteBuffer.allocate(1);
+            channel.read(lastByte, size - 1);
+            return lastByte.get(0) == LF;
+        }
+    }
+}
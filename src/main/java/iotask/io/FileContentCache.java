@@ -0,0 +1,383 @@
+package main.java.iotask.io;
+
+import main.java.iotask.metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+/**
+ * A cache of the content and the line structure of recently used files, bounded by a byte budget.
+ * Entries are keyed by the absolute normalized path and validated by the {@link FileVersions version} of the file,
+ * which changes on every write made by this process, and by its size and modification time, which catch the writes made by other processes,
+ * so a file changed behind the cache is read again. When the budget is exceeded, the least recently used entries are evicted.
+ * Files larger than the whole budget are never cached. The hits and misses are recorded in the {@link MetricsRegistry}.
+ *
+ * @author Nikita Gubin
+ * @see CachedLineEditor
+ */
+public final class FileContentCache {
+
+    /**
+     * The logger for {@link FileContentCache} class.
+     */
+    private static final Logger logger = Logger.getLogger(FileContentCache.class.getName());
+
+    /**
+     * The maximum number of bytes of the cached content and line offsets.
+     */
+    private final long maxBytes;
+
+    /**
+     * The cached entries in the access order, keyed by the absolute normalized path. Guarded by this cache.
+     */
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The number of bytes used by the cached entries. Guarded by this cache.
+     */
+    private long usedBytes;
+
+    /**
+     * Constructs a new {@link FileContentCache} holding up to the specified number of bytes.
+     *
+     * @param maxBytes the maximum number of bytes of the cached content and line offsets
+     */
+    public FileContentCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the cached entry of the file, reading the file into the cache if it is not cached or has changed.
+     *
+     * @param path the path to the file
+     * @return the entry of the file, or null if the file is too large to be cached
+     * @throws IOException if an I/O error occurs reading the file
+     */
+    Entry get(Path path) throws IOException {
+        Path key = keyOf(path);
+        long version = FileVersions.of(key);
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(key, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            invalidate(key);
+            throw e;
+        }
+
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.isValidFor(attributes, version)) {
+                MetricsRegistry.getInstance().addCacheHit();
+                return entry;
+            }
+            if (entry != null) {
+                remove(key);
+            }
+        }
+
+        MetricsRegistry.getInstance().addCacheMiss();
+        if (attributes.size() > maxBytes) {
+            return null;
+        }
+        Entry entry = Entry.of(Files.readAllBytes(key), attributes.lastModifiedTime(), version);
+        MetricsRegistry.getInstance().addBytesRead(entry.length());
+        put(key, entry);
+        return entry;
+    }
+
+    /**
+     * Puts the entry of the file into the cache, replacing the previous one.
+     *
+     * @param path  the path to the file
+     * @param entry the entry of the file
+     */
+    synchronized void put(Path path, Entry entry) {
+        Path key = keyOf(path);
+        remove(key);
+        entries.put(key, entry);
+        entry.weight = entry.weigh();
+        usedBytes += entry.weight;
+        evict();
+    }
+
+    /**
+     * Updates the weight of the entry after it has been edited, evicting other entries if the budget is exceeded.
+     *
+     * @param path  the path to the file
+     * @param entry the edited entry of the file
+     */
+    synchronized void resized(Path path, Entry entry) {
+        if (entries.get(keyOf(path)) != entry) {
+            return;
+        }
+        long weight = entry.weigh();
+        usedBytes += weight - entry.weight;
+        entry.weight = weight;
+        evict();
+    }
+
+    /**
+     * Checks whether the entry is still the cached entry of the file and holds the current version of the file.
+     * A thread that has locked an entry checks it before editing, as another thread may have failed to edit the entry and dropped it meanwhile.
+     *
+     * @param path  the path to the file
+     * @param entry the locked entry of the file
+     * @return true if the entry may be edited, false if the file must be looked up again
+     */
+    synchronized boolean isCurrent(Path path, Entry entry) {
+        Path key = keyOf(path);
+        return entries.get(key) == entry && entry.version == FileVersions.of(key);
+    }
+
+    /**
+     * Removes the entry of the file from the cache.
+     *
+     * @param path the path to the file
+     */
+    synchronized void invalidate(Path path) {
+        remove(keyOf(path));
+    }
+
+    private void remove(Path key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            usedBytes -= entry.weight;
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Path, Entry>> iterator = entries.entrySet().iterator();
+        while (usedBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<Path, Entry> eldest = iterator.next();
+            usedBytes -= eldest.getValue().weight;
+            iterator.remove();
+            logger.log(Level.FINE, "Evicted from the file cache: {0}", eldest.getKey());
+        }
+    }
+
+    private static Path keyOf(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+    /**
+     * The cached content of a file together with the offsets of its lines.
+     * A line starts at the beginning of the file and after every {@code '\n'} that is not the last byte of the file.
+     * The content and the offsets are edited in place, so the entry must be locked while it is read or edited.
+     */
+    static final class Entry {
+
+        /**
+         * The line feed byte terminating every line of the file.
+         */
+        private static final byte LF = '\n';
+
+        /**
+         * The buffer holding the content of the file, possibly followed by spare capacity.
+         */
+        private byte[] buffer;
+
+        /**
+         * The number of bytes of the content.
+         */
+        private int length;
+
+        /**
+         * The offsets of the line starts, possibly followed by spare capacity.
+         */
+        private int[] lineStarts;
+
+        /**
+         * The number of lines.
+         */
+        private int lineCount;
+
+        /**
+         * The last modification time of the file the content was read from or written to.
+         */
+        private FileTime lastModified;
+
+        /**
+         * The version of the file the content was read from or written to.
+         *
+         * @see FileVersions
+         */
+        private long version;
+
+        /**
+         * The weight of the entry accounted by the cache. Guarded by the cache.
+         */
+        private long weight;
+
+        private Entry(byte[] buffer, int length, int[] lineStarts, int lineCount, FileTime lastModified, long version) {
+            this.buffer = buffer;
+            this.length = length;
+            this.lineStarts = lineStarts;
+            this.lineCount = lineCount;
+            this.lastModified = lastModified;
+            this.version = version;
+        }
+
+        /**
+         * Creates an entry holding the specified content.
+         *
+         * @param content      the content of the file
+         * @param lastModified the last modification time of the file
+         * @param version      the version of the file, read before the content
+         * @return the entry holding the content
+         */
+        static Entry of(byte[] content, FileTime lastModified, long version) {
+            int[] lineStarts = new int[16];
+            int lineCount = 0;
+            if (content.length > 0) {
+                lineStarts[lineCount++] = 0;
+            }
+            for (int i = 0; i < content.length - 1; i++) {
+                if (content[i] == LF) {
+                    if (lineCount == lineStarts.length) {
+                        lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+                    }
+                    lineStarts[lineCount++] = i + 1;
+                }
+            }
+            return new Entry(content, content.length, lineStarts, lineCount, lastModified, version);
+        }
+
+        /**
+         * Checks whether the entry still holds the content of the file.
+         *
+         * @param attributes the current attributes of the file
+         * @param version    the current version of the file
+         * @return true if the file has not been written since the entry was read or written, false otherwise
+         */
+        boolean isValidFor(BasicFileAttributes attributes, long version) {
+            return this.version == version && attributes.size() == length && attributes.lastModifiedTime().equals(lastModified);
+        }
+
+        byte[] buffer() {
+            return buffer;
+        }
+
+        int length() {
+            return length;
+        }
+
+        int lineCount() {
+            return lineCount;
+        }
+
+        boolean isTerminated() {
+            return length == 0 || buffer[length - 1] == LF;
+        }
+
+        /**
+         * Returns the offset the line starts at, or the content length for the line following the last one.
+         *
+         * @param lineNumber the one-based number of the line
+         * @return the offset of the line start
+         */
+        int lineStart(int lineNumber) {
+            return lineNumber <= lineCount ? lineStarts[lineNumber - 1] : length;
+        }
+
+        void touched(FileTime lastModified, long version) {
+            this.lastModified = lastModified;
+            this.version = version;
+        }
+
+        /**
+         * Inserts the bytes of complete lines at the start of the specified line, or at the end of a terminated content.
+         *
+         * @param lineNumber the one-based number of the line, at most the line count plus one
+         * @param lines      the bytes of the inserted lines, each terminated by {@code '\n'}
+         */
+        void insertLines(int lineNumber, byte[] lines) {
+            int offset = lineStart(lineNumber);
+            ensureCapacity(length + lines.length);
+            System.arraycopy(buffer, offset, buffer, offset + lines.length, length - offset);
+            System.arraycopy(lines, 0, buffer, offset, lines.length);
+            length += lines.length;
+
+            int inserted = 0;
+            for (int i = 0; i < lines.length; i++) {
+                if (i == 0 || lines[i - 1] == LF) {
+                    inserted++;
+                }
+            }
+            if (lineCount + inserted > lineStarts.length) {
+                lineStarts = Arrays.copyOf(lineStarts, Math.max(lineStarts.length * 2, lineCount + inserted));
+            }
+            System.arraycopy(lineStarts, lineNumber - 1, lineStarts, lineNumber - 1 + inserted, lineCount - lineNumber + 1);
+            int next = lineNumber - 1;
+            for (int i = 0; i < lines.length; i++) {
+                if (i == 0 || lines[i - 1] == LF) {
+                    lineStarts[next++] = offset + i;
+                }
+            }
+            lineCount += inserted;
+            for (int i = next; i < lineCount; i++) {
+                lineStarts[i] += lines.length;
+            }
+        }
+
+        /**
+         * Appends the bytes to the end of the content, extending the last line if the content is not terminated.
+         *
+         * @param bytes the appended bytes, terminated by {@code '\n'}
+         */
+        void append(byte[] bytes) {
+            int offset = length;
+            boolean terminated = isTerminated();
+            ensureCapacity(length + bytes.length);
+            System.arraycopy(bytes, 0, buffer, offset, bytes.length);
+            length += bytes.length;
+            for (int i = 0; i < bytes.length; i++) {
+                boolean lineStart = i == 0 ? terminated : bytes[i - 1] == LF;
+                if (lineStart) {
+                    if (lineCount == lineStarts.length) {
+                        lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+                    }
+                    lineStarts[lineCount++] = offset + i;
+                }
+            }
+        }
+
+        /**
+         * Deletes the specified line together with its line terminator.
+         *
+         * @param lineNumber the one-based number of the line, at most the line count
+         */
+        void deleteLine(int lineNumber) {
+            int from = lineStart(lineNumber);
+            int to = lineStart(lineNumber + 1);
+            System.arraycopy(buffer, to, buffer, from, length - to);
+            length -= to - from;
+
+            System.arraycopy(lineStarts, lineNumber, lineStarts, lineNumber - 1, lineCount - lineNumber);
+            lineCount--;
+            for (int i = lineNumber - 1; i < lineCount; i++) {
+                lineStarts[i] -= to - from;
+            }
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length + (buffer.length >> 1)));
+            }
+        }
+
+        private long weigh() {
+            return buffer.length + (long) lineStarts.length * Integer.BYTES;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package main.java.iotask.io;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A registry of the versions of the files written by this process, used to tell whether cached data about a file is still current.
+ * The size and the modification time of a file cannot tell two writes apart when both keep the size and fall within the same clock tick,
+ * so every code path writing, replacing or deleting a file calls {@link #changed(Path)}, and the caches compare the version they were built at
+ * with the {@link #of(Path) current} one in addition to the file attributes, which still catch the changes made by other processes.
+ * The versions are kept in a fixed number of stripes selected by the path hash, so the registry never grows;
+ * two paths sharing a stripe only cause a spurious cache miss.
+ *
+ * @author Nikita Gubin
+ * @see FileContentCache
+ * @see IndexedLineEditor
+ */
+public final class FileVersions {
+
+    /**
+     * The number of stripes, a power of two.
+     */
+    private static final int STRIPES = 4096;
+
+    /**
+     * The version of every stripe.
+     */
+    private static final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+
+    private FileVersions() {
+    }
+
+    /**
+     * Returns the current version of the file.
+     *
+     * @param path the path to the file
+     * @return the version, which changes whenever the file is written by this process
+     */
+    public static long of(Path path) {
+        return versions.get(stripeOf(path));
+    }
+
+    /**
+     * Records that the file has been written, replaced or deleted, invalidating the data cached about it.
+     *
+     * @param path the path to the file
+     */
+    public static void changed(Path path) {
+        versions.incrementAndGet(stripeOf(path));
+    }
+
+    private static int stripeOf(Path path) {
+        int hash = path.toAbsolutePath().normalize().hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+}
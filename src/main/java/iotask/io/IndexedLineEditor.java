@@ -0,0 +1,239 @@
+package main.java.iotask.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * A {@link LineEditor} that keeps a {@link LineIndex} for every edited file, keyed by the file path and validated by the file {@link FileVersions version}, size and modification time.
+ * An edit seeks straight to the byte offset of the target line: the bytes around the edited line are transferred to a temporary file by the file system
+ * without being decoded, and the index is adjusted only for the lines following the edit.
+ * Inserting past the end of the file, which requires padding, is delegated to the {@link StreamingLineEditor}.
+ * The indexes are bounded by a byte budget: when it is exceeded, the indexes of the least recently edited files are evicted,
+ * and the index of a file larger than the whole budget is used for the edit only.
+ *
+ * @author Nikita Gubin
+ */
+public final class IndexedLineEditor implements LineEditor {
+
+    /**
+     * The logger for {@link IndexedLineEditor} class.
+     */
+    private static final Logger logger = Logger.getLogger(IndexedLineEditor.class.getName());
+
+    /**
+     * The maximum number of bytes of the kept line indexes.
+     */
+    private final long maxBytes;
+
+    /**
+     * The line indexes of the edited files in the access order, keyed by the absolute normalized file path. Guarded by this editor.
+     */
+    private final LinkedHashMap<Path, LineIndex> indexes = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The number of bytes used by the kept line indexes. Guarded by this editor.
+     */
+    private long usedBytes;
+
+    /**
+     * The editor used for the edits the index cannot speed up.
+     */
+    private final StreamingLineEditor streamingLineEditor = new StreamingLineEditor();
+
+    /**
+     * Constructs a new {@link IndexedLineEditor} keeping up to the specified number of bytes of line indexes.
+     *
+     * @param maxBytes the maximum number of bytes of the kept line indexes
+     */
+    public IndexedLineEditor(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void insertLine(Path path, int lineNumber, String text) throws IOException {
+        Path key = key(path);
+        LineIndex index = indexFor(key);
+        if (lineNumber > index.lineCount() + 1 || (lineNumber == index.lineCount() + 1 && !index.isTerminated())) {
+            invalidate(key);
+            streamingLineEditor.insertLine(path, lineNumber, text);
+            return;
+        }
+
+        byte[] line = StreamingLineEditor.toLine(text);
+        long start = index.lineStart(lineNumber);
+        splice(key, index, start, start, line);
+        index.lineInserted(lineNumber, line.length);
+        index.touched(Files.getLastModifiedTime(key).toMillis(), FileVersions.of(key));
+        resized(key, index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean deleteLine(Path path, int lineNumber) throws IOException {
+        Path key = key(path);
+        LineIndex index = indexFor(key);
+        if (lineNumber > index.lineCount()) {
+            return false;
+        }
+
+        splice(key, index, index.lineStart(lineNumber), index.lineStart(lineNumber + 1), new byte[0]);
+        index.lineDeleted(lineNumber);
+        index.touched(Files.getLastModifiedTime(key).toMillis(), FileVersions.of(key));
+        return true;
+    }
+
+    /**
+     * Retrieves the index of the file, building it if there is none or the file has changed since it was built.
+     *
+     * @param key the absolute normalized path to the file
+     * @return the up-to-date index of the file
+     * @throws IOException if an I/O error occurs reading the file
+     */
+    private LineIndex indexFor(Path key) throws IOException {
+        long version = FileVersions.of(key);
+        BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+        synchronized (this) {
+            LineIndex index = indexes.get(key);
+            if (index != null && index.isValidFor(attributes, version)) {
+                return index;
+            }
+        }
+        logger.log(Level.INFO, "Building line index for file: {0}", key);
+        LineIndex index = LineIndex.build(key);
+        put(key, index);
+        return index;
+    }
+
+    /**
+     * Keeps the index of the file, replacing the previous one and evicting the least recently used indexes if the budget is exceeded.
+     *
+     * @param key   the absolute normalized path to the file
+     * @param index the index of the file
+     */
+    private synchronized void put(Path key, LineIndex index) {
+        remove(key);
+        index.weight = index.weigh();
+        if (index.weight > maxBytes) {
+            return;
+        }
+        indexes.put(key, index);
+        usedBytes += index.weight;
+        evict();
+    }
+
+    /**
+     * Updates the weight of the index after an edit, evicting other indexes if the budget is exceeded.
+     *
+     * @param key   the absolute normalized path to the file
+     * @param index the edited index of the file
+     */
+    private synchronized void resized(Path key, LineIndex index) {
+        if (indexes.get(key) != index) {
+            return;
+        }
+        long weight = index.weigh();
+        usedBytes += weight - index.weight;
+        index.weight = weight;
+        evict();
+    }
+
+    /**
+     * Drops the index of the file.
+     *
+     * @param key the absolute normalized path to the file
+     */
+    private synchronized void invalidate(Path key) {
+        remove(key);
+    }
+
+    private void remove(Path key) {
+        LineIndex index = indexes.remove(key);
+        if (index != null) {
+            usedBytes -= index.weight;
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Path, LineIndex>> iterator = indexes.entrySet().iterator();
+        while (usedBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<Path, LineIndex> eldest = iterator.next();
+            usedBytes -= eldest.getValue().weight;
+            iterator.remove();
+            logger.log(Level.FINE, "Evicted the line index of file: {0}", eldest.getKey());
+        }
+    }
+
+    /**
+     * Replaces the bytes of the file between the offsets with the insertion.
+     * The index is dropped if the file could not be rewritten.
+     *
+     * @param path      the path to the file
+     * @param index     the up-to-date index of the file
+     * @param from      the offset of the first replaced byte
+     * @param to        the offset following the last replaced byte
+     * @param insertion the bytes to write instead of the replaced ones
+     * @throws IOException if an I/O error occurs reading or writing the file
+     */
+    private void splice(Path path, LineIndex index, long from, long to, byte[] insertion) throws IOException {
+        boolean replaced = false;
+        try {
+            AtomicFileReplacer.replace(path, temp -> {
+                try (FileChannel in = FileChannel.open(path, READ); FileChannel out = FileChannel.open(temp, WRITE)) {
+                    transfer(in, 0, from, out);
+                    ByteBuffer buffer = ByteBuffer.wrap(insertion);
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    transfer(in, to, index.size() - to, out);
+                }
+                return true;
+            });
+            replaced = true;
+        } finally {
+            if (!replaced) {
+                invalidate(path);
+            }
+        }
+    }
+
+    /**
+     * Transfers the bytes of the source file region to the target channel.
+     *
+     * @param source   the source file channel
+     * @param position the position of the region in the source file
+     * @param count    the number of bytes to transfer
+     * @param target   the target file channel
+     * @throws IOException if an I/O error occurs transferring the bytes
+     */
+    private static void transfer(FileChannel source, long position, long count, FileChannel target) throws IOException {
+        while (count > 0) {
+            long transferred = source.transferTo(position, count, target);
+            if (transferred == 0) {
+                throw new IOException("File has been truncated while being edited");
+            }
+            position += transferred;
+            count -= transferred;
+        }
+    }
+
+    private static Path key(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+}
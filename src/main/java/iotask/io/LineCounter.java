@@ -0,0 +1,137 @@
+package main.java.iotask.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * A class for counting the lines of a text file without decoding it.
+ * The file is mapped window by window and the line feeds are counted eight bytes at a time with SWAR (SIMD within a register) arithmetic:
+ * every line feed byte of a word is turned into a single set bit and the bits are counted with {@link Long#bitCount(long)}.
+ * The bytes of a window that do not fill a whole word are counted one by one.
+ *
+ * @author Nikita Gubin
+ * @see MappedLineEditor
+ */
+public final class LineCounter {
+
+    /**
+     * The size of the windows the files are mapped in.
+     */
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * The line feed byte terminating every line of the file.
+     */
+    private static final byte LF = '\n';
+
+    /**
+     * The line feed byte repeated in every byte of a word.
+     */
+    private static final long LF_BYTES = 0x0A0A0A0A0A0A0A0AL;
+
+    /**
+     * The word with all bits but the highest one of every byte set.
+     */
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+    private LineCounter() {
+    }
+
+    /**
+     * Counts the bytes and the lines of the file and tells whether its last line is terminated.
+     * A line is counted for every line feed, plus one for a last line without a line feed.
+     *
+     * @param path the path to the file
+     * @return the statistics of the file
+     * @throws IOException if an I/O error occurs reading the file
+     */
+    public static Stats count(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+            long size = channel.size();
+            long lineFeeds = 0;
+            for (long window = 0; window < size; window += WINDOW_SIZE) {
+                lineFeeds += countLineFeeds(channel.map(FileChannel.MapMode.READ_ONLY, window, Math.min(WINDOW_SIZE, size - window)));
+            }
+            boolean terminated = size > 0 && lastByte(channel, size) == LF;
+            long lines = lineFeeds + (size > 0 && !terminated ? 1 : 0);
+            return new Stats(size, lines, terminated);
+        }
+    }
+
+    /**
+     * Counts the line feeds of the buffer, four words per iteration.
+     *
+     * @param buffer the buffer, read from its start to its limit
+     * @return the number of line feeds
+     */
+    static long countLineFeeds(MappedByteBuffer buffer) {
+        int limit = buffer.limit();
+        long lineFeeds = 0;
+        int i = 0;
+        for (; i + 4 * Long.BYTES <= limit; i += 4 * Long.BYTES) {
+            lineFeeds += Long.bitCount(lineFeedMask(buffer.getLong(i)))
+                    + Long.bitCount(lineFeedMask(buffer.getLong(i + Long.BYTES)))
+                    + Long.bitCount(lineFeedMask(buffer.getLong(i + 2 * Long.BYTES)))
+                    + Long.bitCount(lineFeedMask(buffer.getLong(i + 3 * Long.BYTES)));
+        }
+        for (; i < limit; i++) {
+            if (buffer.get(i) == LF) {
+                lineFeeds++;
+            }
+        }
+        return lineFeeds;
+    }
+
+    /**
+     * Marks the line feed bytes of the eight bytes packed into the word.
+     * Every line feed byte becomes {@code 0x80} and every other byte becomes zero, so the number of line feeds is the bit count of the mask.
+     *
+     * @param word the eight bytes of the file
+     * @return the mask of the line feed bytes
+     */
+    static long lineFeedMask(long word) {
+        return byteMask(word, LF_BYTES);
+    }
+
+    /**
+     * Marks the bytes of the word equal to the repeated byte.
+     * Every equal byte becomes {@code 0x80} and every other byte becomes zero, without false positives.
+     *
+     * @param word     the eight bytes of the file
+     * @param repeated the byte looked for, repeated in every byte of a word
+     * @return the mask of the equal bytes
+     */
+    static long byteMask(long word, long repeated) {
+        long bytes = word ^ repeated;
+        return ~(((bytes & LOW_BITS) + LOW_BITS) | bytes | LOW_BITS);
+    }
+
+    /**
+     * Reads the last byte of the file.
+     *
+     * @param channel the channel of the file
+     * @param size    the size of the file, greater than zero
+     * @return the last byte
+     * @throws IOException if an I/O error occurs reading the file
+     */
+    static byte lastByte(FileChannel channel, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+        channel.read(buffer, size - 1);
+        return buffer.get(0);
+    }
+
+    /**
+     * The statistics of a text file.
+     *
+     * @param bytes      the size of the file in bytes
+     * @param lines      the number of lines
+     * @param terminated whether the last line ends with a line feed, false for an empty file
+     */
+    public record Stats(long bytes, long lines, boolean terminated) {
+    }
+}
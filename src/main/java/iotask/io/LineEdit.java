@@ -0,0 +1,33 @@
+package main.java.iotask.io;
+
+/**
+ * A single edit of a text file applied by the {@link LinePatcher}.
+ *
+ * @param kind       the kind of the edit
+ * @param lineNumber the one-based number of the line of the original file the edit refers to, or zero for an append
+ * @param text       the text of the inserted or appended line, or null for a deletion
+ * @author Nikita Gubin
+ */
+public record LineEdit(Kind kind, int lineNumber, String text) {
+
+    /**
+     * An enumeration of the kinds of line edits.
+     */
+    public enum Kind {
+
+        /**
+         * Inserts the text as a new line before the line of the original file.
+         */
+        INSERT,
+
+        /**
+         * Deletes the line of the original file.
+         */
+        DELETE,
+
+        /**
+         * Appends the text as a new line at the end of the file.
+         */
+        APPEND
+    }
+}
@@ -0,0 +1,34 @@
+package main.java.iotask.io;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * An interface representing a strategy for inserting and deleting single lines of a text file.
+ * Lines are numbered from one and terminated by {@code '\n'}.
+ *
+ * @author Nikita Gubin
+ */
+public interface LineEditor {
+
+    /**
+     * Inserts the text as the specified line of the file, shifting the following lines down.
+     * If the file has fewer lines, it is padded with empty lines up to the specified line.
+     *
+     * @param path       the path to the file
+     * @param lineNumber the one-based number of the line to insert the text at
+     * @param text       the text to insert
+     * @throws IOException if an I/O error occurs reading or writing the file
+     */
+    void insertLine(Path path, int lineNumber, String text) throws IOException;
+
+    /**
+     * Deletes the specified line of the file together with its line terminator.
+     *
+     * @param path       the path to the file
+     * @param lineNumber the one-based number of the line to delete
+     * @return true if the line was deleted, false if the file has fewer lines and was left untouched
+     * @throws IOException if an I/O error occurs reading or writing the file
+     */
+    boolean deleteLine(Path path, int lineNumber) throws IOException;
+}
@@ -0,0 +1,227 @@
+package main.java.iotask.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * An index of the byte offsets at which the lines of a text file start.
+ * The offsets are kept in a primitive array, and the index remembers the size, the modification time and the {@link FileVersions version} of the file it describes,
+ * so a stale index can be detected, even after a same-size rewrite by this process within the same clock tick. After an edit the offsets are adjusted only for the lines following the edited one.
+ *
+ * @author Nikita Gubin
+ */
+public final class LineIndex {
+
+    /**
+     * The size of the buffer used for scanning the file.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The line feed byte terminating every line of the file.
+     */
+    private static final byte LF = '\n';
+
+    /**
+     * The byte offsets of the line starts, only the first {@link LineIndex#lineCount} elements are used.
+     */
+    private long[] lineStarts;
+
+    /**
+     * The number of lines in the file.
+     */
+    private int lineCount;
+
+    /**
+     * The size of the file in bytes.
+     */
+    private long size;
+
+    /**
+     * Whether the last line of the file is terminated by a line feed, true for an empty file.
+     */
+    private boolean terminated;
+
+    /**
+     * The last modification time of the file in milliseconds.
+     */
+    private long lastModified;
+
+    /**
+     * The version of the file.
+     *
+     * @see FileVersions
+     */
+    private long version;
+
+    /**
+     * The weight of the index accounted by the {@link IndexedLineEditor} holding it. Guarded by the editor.
+     */
+    long weight;
+
+    private LineIndex(long[] lineStarts, int lineCount, long size, boolean terminated) {
+        this.lineStarts = lineStarts;
+        this.lineCount = lineCount;
+        this.size = size;
+        this.terminated = terminated;
+    }
+
+    /**
+     * Builds the index by scanning the bytes of the file.
+     *
+     * @param path the path to the file
+     * @return the index of the file
+     * @throws IOException if an I/O error occurs reading the file
+     */
+    public static LineIndex build(Path path) throws IOException {
+        long version = FileVersions.of(path);
+        long lastModified = Files.getLastModifiedTime(path).toMillis();
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+            long size = channel.size();
+            long[] lineStarts = new long[16];
+            int lineCount = 0;
+            if (size > 0) {
+                lineStarts[lineCount++] = 0;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            long offset = 0;
+            byte lastByte = LF;
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                int limit = buffer.limit();
+                for (int i = 0; i < limit; i++) {
+                    if (buffer.get(i) == LF && offset + i + 1 < size) {
+                        if (lineCount == lineStarts.length) {
+                            lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+                        }
+                        lineStarts[lineCount++] = offset + i + 1;
+                    }
+                }
+                if (limit > 0) {
+                    lastByte = buffer.get(limit - 1);
+                }
+                offset += limit;
+                buffer.clear();
+            }
+
+            LineIndex index = new LineIndex(lineStarts, lineCount, size, lastByte == LF);
+            index.lastModified = lastModified;
+            index.version = version;
+            return index;
+        }
+    }
+
+    /**
+     * Checks whether the index still describes the file by comparing its version, size and modification time.
+     *
+     * @param attributes the current attributes of the file
+     * @param version    the current version of the file
+     * @return true if the index is up to date, false otherwise
+     */
+    public boolean isValidFor(BasicFileAttributes attributes, long version) {
+        return this.version == version && attributes.size() == size && attributes.lastModifiedTime().toMillis() == lastModified;
+    }
+
+    /**
+     * Returns the number of lines in the file.
+     *
+     * @return the number of lines
+     */
+    public int lineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Returns the size of the file in bytes.
+     *
+     * @return the size of the file
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the last line of the file is terminated by a line feed.
+     *
+     * @return true if the file is empty or ends with a line feed, false otherwise
+     */
+    public boolean isTerminated() {
+        return terminated;
+    }
+
+    /**
+     * Returns the byte offset at which the line starts.
+     *
+     * @param lineNumber the one-based number of the line, up to the line count plus one
+     * @return the offset of the line start, or the file size for the line following the last one
+     */
+    public long lineStart(int lineNumber) {
+        return lineNumber <= lineCount ? lineStarts[lineNumber - 1] : size;
+    }
+
+    /**
+     * Records a line inserted before the specified line of a file whose last line is terminated.
+     *
+     * @param lineNumber the one-based number of the inserted line, up to the line count plus one
+     * @param length     the length of the inserted line in bytes, including its terminator
+     */
+    void lineInserted(int lineNumber, long length) {
+        long start = lineStart(lineNumber);
+        if (lineCount == lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+        }
+        System.arraycopy(lineStarts, lineNumber - 1, lineStarts, lineNumber, lineCount - lineNumber + 1);
+        lineStarts[lineNumber - 1] = start;
+        lineCount++;
+        for (int i = lineNumber; i < lineCount; i++) {
+            lineStarts[i] += length;
+        }
+        size += length;
+    }
+
+    /**
+     * Records the deletion of the specified line.
+     *
+     * @param lineNumber the one-based number of the deleted line
+     */
+    void lineDeleted(int lineNumber) {
+        long length = lineStart(lineNumber + 1) - lineStart(lineNumber);
+        if (lineNumber == lineCount) {
+            terminated = true;
+        }
+        System.arraycopy(lineStarts, lineNumber, lineStarts, lineNumber - 1, lineCount - lineNumber);
+        lineCount--;
+        for (int i = lineNumber - 1; i < lineCount; i++) {
+            lineStarts[i] -= length;
+        }
+        size -= length;
+    }
+
+    /**
+     * Returns the number of bytes the index takes in memory, counting the spare capacity of the offsets.
+     *
+     * @return the size of the offsets in bytes
+     */
+    long weigh() {
+        return (long) lineStarts.length * Long.BYTES;
+    }
+
+    /**
+     * Records the modification time and the version of the file after it has been edited.
+     *
+     * @param lastModified the modification time in milliseconds
+     * @param version      the version of the file
+     */
+    void touched(long lastModified, long version) {
+        this.lastModified = lastModified;
+        this.version = version;
+    }
+}
@@ -0,0 +1,219 @@
+package main.java.iotask.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static main.java.iotask.io.StreamingLineEditor.LINE_SEPARATOR;
+
+/**
+ * A class for applying many line edits to a text file in a single streaming pass.
+ * <p>
+ * The line numbers of all edits refer to the lines of the original file, so the edits do not shift each other:
+ * <ul>
+ * <li>the lines inserted at line N are placed before the original line N, in the order they were given;</li>
+ * <li>a deleted line N is the original line N, so inserting and deleting the same line replaces it;</li>
+ * <li>inserting past the end of the file pads it with empty lines, as if the original file had empty lines up to the inserted line;</li>
+ * <li>appended lines are placed at the very end of the file, in the order they were given.</li>
+ * </ul>
+ * The edits are sorted by line and the file is streamed once through a fixed size buffer into a temporary file,
+ * which replaces the file through {@link AtomicFileReplacer} only if every edit could be applied.
+ * Lines are terminated by {@code '\n'} (which also covers {@code "\r\n"}), the original line terminators are preserved.
+ * A gzip-compressed file is decompressed and compressed again on the fly by its {@link Compression}.
+ *
+ * @author Nikita Gubin
+ * @see LineEdit
+ */
+public final class LinePatcher {
+
+    /**
+     * The size of the buffer used for streaming the file content.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The line feed byte terminating every line of the file.
+     */
+    private static final byte LF = '\n';
+
+    /**
+     * Applies the edits to the file.
+     *
+     * @param path  the path to the file
+     * @param edits the edits, with line numbers of the original file
+     * @return true if the file was patched, false if a deleted line does not exist and the file was left untouched
+     * @throws IOException              if an I/O error occurs reading or writing the file
+     * @throws IllegalArgumentException if an insertion or deletion has a line number less than one
+     */
+    public boolean apply(Path path, List<LineEdit> edits) throws IOException {
+        List<LineEdit> lineEdits = new ArrayList<>();
+        List<LineEdit> appends = new ArrayList<>();
+        for (LineEdit edit : edits) {
+            if (edit.kind() == LineEdit.Kind.APPEND) {
+                appends.add(edit);
+            } else if (edit.lineNumber() < 1) {
+                throw new IllegalArgumentException("Invalid line number: " + edit.lineNumber());
+            } else {
+                lineEdits.add(edit);
+            }
+        }
+        lineEdits.sort(Comparator.comparingInt(LineEdit::lineNumber).thenComparing(LineEdit::kind));
+
+        Compression compression = Compression.of(path);
+        return AtomicFileReplacer.replace(path, temp -> {
+            try (InputStream in = compression.newInputStream(path); OutputStream out = compression.newOutputStream(temp)) {
+                return new Pass(out, lineEdits, appends).run(in);
+            }
+        });
+    }
+
+    /**
+     * A single pass of the edits over the file.
+     */
+    private static final class Pass {
+
+        /**
+         * The edited file content.
+         */
+        private final OutputStream out;
+
+        /**
+         * The insertions and deletions sorted by line, inserts before the deletion of the same line.
+         */
+        private final List<LineEdit> lineEdits;
+
+        /**
+         * The appends in the order they were given.
+         */
+        private final List<LineEdit> appends;
+
+        /**
+         * The index of the next line edit to apply.
+         */
+        private int nextEdit;
+
+        /**
+         * The last byte written to the output, or -1 if nothing has been written.
+         */
+        private int lastWritten = -1;
+
+        private Pass(OutputStream out, List<LineEdit> lineEdits, List<LineEdit> appends) {
+            this.out = out;
+            this.lineEdits = lineEdits;
+            this.appends = appends;
+        }
+
+        /**
+         * Copies the input to the output, applying the edits on the way.
+         *
+         * @param in the original file content
+         * @return true if all edits were applied, false if a deleted line does not exist
+         * @throws IOException if an I/O error occurs reading or writing the streams
+         */
+        private boolean run(InputStream in) throws IOException {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long lineNumber = 1;
+            long nextLine = nextEditLine();
+            boolean atLineStart = true;
+            boolean skipping = false;
+
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                int position = 0;
+                while (position < read) {
+                    if (atLineStart && lineNumber == nextLine) {
+                        skipping = applyLineEdits(lineNumber);
+                        nextLine = nextEditLine();
+                    }
+                    int start = position;
+                    if (skipping) {
+                        while (position < read && buffer[position] != LF) {
+                            position++;
+                        }
+                        atLineStart = position < read;
+                        if (atLineStart) {
+                            position++;
+                            lineNumber++;
+                            skipping = false;
+                        }
+                    } else {
+                        while (position < read) {
+                            if (buffer[position++] == LF && ++lineNumber == nextLine) {
+                                break;
+                            }
+                        }
+                        atLineStart = buffer[position - 1] == LF;
+                        write(buffer, start, position - start);
+                    }
+                }
+            }
+
+            if (nextEdit < lineEdits.size() && lastWritten != -1 && lastWritten != LF) {
+                write(LINE_SEPARATOR);
+            }
+            long virtualLine = atLineStart ? lineNumber : lineNumber + 1;
+            for (; nextEdit < lineEdits.size(); nextEdit++) {
+                LineEdit edit = lineEdits.get(nextEdit);
+                if (edit.kind() == LineEdit.Kind.DELETE) {
+                    return false;
+                }
+                for (; virtualLine < edit.lineNumber(); virtualLine++) {
+                    write(LINE_SEPARATOR);
+                }
+                write(StreamingLineEditor.toLine(edit.text()));
+            }
+
+            if (!appends.isEmpty() && lastWritten != -1 && lastWritten != LF) {
+                write(LINE_SEPARATOR);
+            }
+            for (LineEdit edit : appends) {
+                write(StreamingLineEditor.toLine(edit.text()));
+            }
+            return true;
+        }
+
+        /**
+         * Returns the line of the next line edit to apply.
+         *
+         * @return the one-based line number, or {@link Long#MAX_VALUE} if all line edits have been applied
+         */
+        private long nextEditLine() {
+            return nextEdit < lineEdits.size() ? lineEdits.get(nextEdit).lineNumber() : Long.MAX_VALUE;
+        }
+
+        /**
+         * Writes the lines inserted before the line and tells whether the line is deleted.
+         *
+         * @param lineNumber the one-based number of the original line about to be copied
+         * @return true if the line is deleted
+         * @throws IOException if an I/O error occurs writing the output
+         */
+        private boolean applyLineEdits(long lineNumber) throws IOException {
+            boolean deleted = false;
+            while (nextEdit < lineEdits.size() && lineEdits.get(nextEdit).lineNumber() == lineNumber) {
+                LineEdit edit = lineEdits.get(nextEdit++);
+                if (edit.kind() == LineEdit.Kind.INSERT) {
+                    write(StreamingLineEditor.toLine(edit.text()));
+                } else {
+                    deleted = true;
+                }
+            }
+            return deleted;
+        }
+
+        private void write(byte[] bytes) throws IOException {
+            write(bytes, 0, bytes.length);
+        }
+
+        private void write(byte[] bytes, int offset, int length) throws IOException {
+            if (length > 0) {
+                out.write(bytes, offset, length);
+                lastWritten = bytes[offset + length - 1];
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package main.java.iotask.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.*;
+import static main.java.iotask.io.StreamingLineEditor.LINE_SEPARATOR;
+
+/**
+ * A {@link LineEditor} that inserts or deletes a single line of a text file through memory-mapped buffers.
+ * The file is mapped window by window and the line feeds are counted straight in the {@link MappedByteBuffer} eight bytes at a time,
+ * so the bytes are never decoded into strings and no object is created per line.
+ * The edited content is assembled in a temporary file in the same directory by writing the mapped bytes before and after the target line
+ * straight from the mapped source, and the temporary file then replaces the original one through {@link AtomicFileReplacer}.
+ * Lines are terminated by {@code '\n'} (which also covers {@code "\r\n"}), the original line terminators are preserved.
+ * The empty lines padding the file up to a line inserted past its end are written through a fixed size buffer, however many they are.
+ *
+ * @author Nikita Gubin
+ */
+public final class MappedLineEditor implements LineEditor {
+
+    /**
+     * The size of the windows the files are mapped in.
+     */
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * The line feed byte terminating every line of the file.
+     */
+    private static final byte LF = '\n';
+
+    /**
+     * The size of the buffer the padding lines are written through.
+     */
+    private static final int PADDING_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void insertLine(Path path, int lineNumber, String text) throws IOException {
+        byte[] insertion = StreamingLineEditor.toLine(text);
+        try (FileChannel in = FileChannel.open(path, READ)) {
+            long[] scan = scanLines(in, lineNumber - 1L);
+            long start = scan[0];
+            if (start >= 0) {
+                rewrite(path, in, start, start, insertion);
+                return;
+            }
+
+            append(path, in, lineNumber - 1L - scan[1], insertion);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean deleteLine(Path path, int lineNumber) throws IOException {
+        try (FileChannel in = FileChannel.open(path, READ)) {
+            long size = in.size();
+            long start = scanLines(in, lineNumber - 1L)[0];
+            if (start < 0 || start == size) {
+                return false;
+            }
+            long end = indexOf(in, start, size);
+            rewrite(path, in, start, end < 0 ? size : end + 1, new byte[0]);
+            return true;
+        }
+    }
+
+    /**
+     * Finds the offset the line following the specified number of lines starts at.
+     *
+     * @param in          the channel of the file
+     * @param linesBefore the number of lines before the target line
+     * @return the offset of the target line, or -1 if the file has fewer lines, followed by the number of line feeds counted
+     * @throws IOException if an I/O error occurs reading the file
+     */
+    private static long[] scanLines(FileChannel in, long linesBefore) throws IOException {
+        if (linesBefore == 0) {
+            return new long[]{0, 0};
+        }
+        long size = in.size();
+        long lineFeeds = 0;
+        for (long window = 0; window < size; window += WINDOW_SIZE) {
+            MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, window, Math.min(WINDOW_SIZE, size - window));
+            int limit = buffer.limit();
+            int i = 0;
+            for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+                int count = Long.bitCount(LineCounter.lineFeedMask(buffer.getLong(i)));
+                if (lineFeeds + count >= linesBefore) {
+                    break;
+                }
+                lineFeeds += count;
+            }
+            for (; i < limit; i++) {
+                if (buffer.get(i) == LF && ++lineFeeds == linesBefore) {
+                    return new long[]{window + i + 1, lineFeeds};
+                }
+            }
+        }
+        return new long[]{-1, lineFeeds};
+    }
+
+    /**
+     * Finds the offset of the first line feed in the specified range of the file.
+     *
+     * @param in   the channel of the file
+     * @param from the offset to start searching at, inclusive
+     * @param to   the offset to stop searching at, exclusive
+     * @return the offset of the line feed, or -1 if the range contains none
+     * @throws IOException if an I/O error occurs reading the file
+     */
+    private static long indexOf(FileChannel in, long from, long to) throws IOException {
+        for (long window = from; window < to; window += WINDOW_SIZE) {
+            MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, window, Math.min(WINDOW_SIZE, to - window));
+            int limit = buffer.limit();
+            int i = 0;
+            while (i + Long.BYTES <= limit && LineCounter.lineFeedMask(buffer.getLong(i)) == 0) {
+                i += Long.BYTES;
+            }
+            for (; i < limit; i++) {
+                if (buffer.get(i) == LF) {
+                    return window + i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Rewrites the file with the bytes of the specified range replaced by the replacement.
+     *
+     * @param path        the path to the file
+     * @param in          the channel of the file
+     * @param start       the offset of the first replaced byte
+     * @param end         the offset following the last replaced byte
+     * @param replacement the bytes written in place of the range
+     * @throws IOException if an I/O error occurs reading or writing the files
+     */
+    private static void rewrite(Path path, FileChannel in, long start, long end, byte[] replacement) throws IOException {
+        long size = in.size();
+        AtomicFileReplacer.replace(path, temp -> {
+            try (FileChannel out = FileChannel.open(temp, WRITE)) {
+                writeMapped(in, 0, out, 0, start);
+                writeFully(out, ByteBuffer.wrap(replacement), start);
+                writeMapped(in, end, out, start + replacement.length, size - end);
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Rewrites the file with the line separators and the line appended after its content.
+     *
+     * @param path       the path to the file
+     * @param in         the channel of the file
+     * @param separators the number of line separators written before the line, terminating the last line of the file and padding it
+     * @param line       the bytes of the appended line
+     * @throws IOException if an I/O error occurs reading or writing the files
+     */
+    private static void append(Path path, FileChannel in, long separators, byte[] line) throws IOException {
+        long size = in.size();
+        AtomicFileReplacer.replace(path, temp -> {
+            try (FileChannel out = FileChannel.open(temp, WRITE)) {
+                writeMapped(in, 0, out, 0, size);
+                long position = size;
+                int chunkLines = PADDING_BUFFER_SIZE / LINE_SEPARATOR.length;
+                ByteBuffer padding = ByteBuffer.allocate((int) Math.min(separators, chunkLines) * LINE_SEPARATOR.length);
+                while (padding.hasRemaining()) {
+                    padding.put(LINE_SEPARATOR);
+                }
+                for (long remaining = separators; remaining > 0; remaining -= chunkLines) {
+                    padding.position(0).limit((int) Math.min(remaining, chunkLines) * LINE_SEPARATOR.length);
+                    position += writeFully(out, padding, position);
+                }
+                writeFully(out, ByteBuffer.wrap(line), position);
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Writes the remaining bytes of the buffer to the channel at the position.
+     *
+     * @param out      the channel of the output file
+     * @param buffer   the bytes to write
+     * @param position the offset in the output file
+     * @return the number of bytes written
+     * @throws IOException if an I/O error occurs writing the file
+     */
+    private static int writeFully(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+        int length = buffer.remaining();
+        for (int written = 0; written < length; ) {
+            written += out.write(buffer, position + written);
+        }
+        return length;
+    }
+
+    /**
+     * Writes the bytes of the source file to the output file window by window straight from the mapped source.
+     *
+     * @param in     the channel of the source file
+     * @param from   the offset in the source file
+     * @param out    the channel of the output file
+     * @param to     the offset in the output file
+     * @param length the number of bytes to write
+     * @throws IOException if an I/O error occurs reading or writing the files
+     */
+    private static void writeMapped(FileChannel in, long from, FileChannel out, long to, long length) throws IOException {
+        for (long written = 0; written < length; written += WINDOW_SIZE) {
+            long windowSize = Math.min(WINDOW_SIZE, length - written);
+            MappedByteBuffer source = in.map(FileChannel.MapMode.READ_ONLY, from + written, windowSize);
+            while (source.hasRemaining()) {
+                out.write(source, to + written + source.position());
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package main.java.iotask.io;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+
+/**
+ * A pattern selecting the files of a directory tree: a path to a directory or a file, or a glob pattern such as {@code "logs/**}{@code /*.txt"}.
+ * The pattern is split into the base directory, made of the leading path elements without glob characters, and the glob matched against the paths
+ * of the files relative to the base directory. A {@code "**}{@code /"} in the glob also matches no directories, so {@code "logs/**}{@code /*.txt"}
+ * selects the text files directly in {@code logs} too. A pattern without glob characters selects every file under the directory, or the file itself.
+ *
+ * @author Nikita Gubin
+ */
+public final class PathPattern {
+
+    /**
+     * The characters starting a glob construct.
+     */
+    private static final String GLOB_CHARACTERS = "*?[{";
+
+    /**
+     * The directory the selected files are walked from, or the selected file.
+     */
+    private final Path base;
+
+    /**
+     * The matcher of the file paths relative to the base directory, or null if every file is selected.
+     */
+    private final PathMatcher matcher;
+
+    private PathPattern(Path base, PathMatcher matcher) {
+        this.base = base;
+        this.matcher = matcher;
+    }
+
+    /**
+     * Parses the pattern.
+     *
+     * @param pattern the path or the glob pattern, with elements separated by {@code '/'}
+     * @return the parsed pattern
+     * @throws java.nio.file.InvalidPathException if the base directory is not a valid path
+     * @throws java.util.regex.PatternSyntaxException if the glob is invalid
+     */
+    public static PathPattern of(String pattern) {
+        String[] elements = pattern.split("/", -1);
+        int firstGlob = 0;
+        while (firstGlob < elements.length && !isGlob(elements[firstGlob])) {
+            firstGlob++;
+        }
+        if (firstGlob == elements.length) {
+            return new PathPattern(Paths.get(pattern), null);
+        }
+
+        String baseDirectory = String.join("/", Arrays.copyOf(elements, firstGlob));
+        Path base = firstGlob == 0 ? Paths.get(".") : Paths.get(baseDirectory.isEmpty() ? "/" : baseDirectory);
+        String glob = String.join("/", Arrays.copyOfRange(elements, firstGlob, elements.length));
+        if (!glob.contains("{")) {
+            glob = glob.replace("**/", "{**/,}");
+        }
+        return new PathPattern(base, base.getFileSystem().getPathMatcher("glob:" + glob));
+    }
+
+    /**
+     * Tells whether the text contains glob characters.
+     *
+     * @param text the path or the glob pattern
+     * @return true if the text is a glob pattern
+     */
+    public static boolean isGlob(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (GLOB_CHARACTERS.indexOf(text.charAt(i)) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the directory the selected files are walked from, or the selected file.
+     *
+     * @return the base path of the pattern
+     */
+    public Path base() {
+        return base;
+    }
+
+    /**
+     * Tells whether the pattern selects the files by a glob rather than every file under the base directory.
+     *
+     * @return true if the pattern has a glob
+     */
+    public boolean isGlob() {
+        return matcher != null;
+    }
+
+    /**
+     * Walks the tree under the base directory and passes every selected regular file to the action.
+     *
+     * @param action the action performed on the selected files
+     * @throws IOException if an I/O error occurs walking the tree or the action fails
+     */
+    public void walk(FileAction action) throws IOException {
+        if (Files.isRegularFile(base)) {
+            if (matcher == null) {
+                action.accept(base, base.getFileName(), Files.readAttributes(base, BasicFileAttributes.class));
+            }
+            return;
+        }
+
+        Files.walkFileTree(base, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                Path relative = base.relativize(file);
+                if (attributes.isRegularFile() && (matcher == null || matcher.matches(relative))) {
+                    action.accept(file, relative, attributes);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * An action performed on a file selected by the pattern.
+     */
+    @FunctionalInterface
+    public interface FileAction {
+
+        /**
+         * Performs the action on the file.
+         *
+         * @param file       the path to the file
+         * @param relative   the path of the file relative to the base directory
+         * @param attributes the attributes of the file
+         * @throws IOException if an I/O error occurs
+         */
+        void accept(Path file, Path relative, BasicFileAttributes attributes) throws IOException;
+    }
+}
@@ -0,0 +1,210 @@
+package main.java.iotask.io;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A class for replacing the matches of a regular expression in a text file without loading the file into memory.
+ * The file is streamed through a fixed size buffer and the substitution is applied line by line, so the memory used depends on the longest line
+ * rather than on the file size, and the file is rewritten in a single pass into a temporary file which replaces it through {@link AtomicFileReplacer}.
+ * Lines without matches are copied as their original bytes, only the changed lines are encoded again.
+ * Lines are terminated by {@code '\n'} (which also covers {@code "\r\n"}): the terminators are not passed to the pattern and are preserved,
+ * so a match never spans lines and {@code $} matches at the end of every line.
+ * Every line is decoded as strict UTF-8, so a file that is not valid UTF-8 is left untouched instead of being rewritten with replacement characters.
+ * If the pattern matches nothing the temporary file is discarded and the file is not rewritten.
+ * The file is read and written through its {@link Compression}, so the lines of a gzip-compressed file are replaced without unpacking it on the disk.
+ *
+ * @author Nikita Gubin
+ * @see StreamingLineEditor
+ */
+public final class RegexLineReplacer {
+
+    /**
+     * The size of the buffer used for streaming the file content, grown only to hold a longer line.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The line feed byte terminating every line of the file.
+     */
+    private static final byte LF = '\n';
+
+    /**
+     * The carriage return byte preceding the line feed of a {@code "\r\n"} terminator.
+     */
+    private static final byte CR = '\r';
+
+    /**
+     * The character malformed UTF-8 bytes are decoded as by a lenient decoder.
+     */
+    private static final char REPLACEMENT_CHARACTER = '\uFFFD';
+
+    private RegexLineReplacer() {
+    }
+
+    /**
+     * Replaces every match of the pattern in the lines of the file with the replacement.
+     *
+     * @param path        the path to the file
+     * @param pattern     the pattern to find in every line
+     * @param replacement the replacement, which may refer to the groups of the pattern as in {@link Matcher#appendReplacement(StringBuilder, String)}
+     * @return the number of changed lines and of replaced matches
+     * @throws IOException if an I/O error occurs reading or writing the file, or the file is not valid UTF-8
+     */
+    public static Result replace(Path path, Pattern pattern, String replacement) throws IOException {
+        LineReplacer lineReplacer = new LineReplacer(pattern.matcher(""), replacement);
+        Compression compression = Compression.of(path);
+        AtomicFileReplacer.replace(path, temp -> {
+            try (InputStream in = compression.newInputStream(path); OutputStream out = new BufferedOutputStream(compression.newOutputStream(temp), BUFFER_SIZE)) {
+                copyWithReplacements(in, out, lineReplacer);
+            }
+            return lineReplacer.replacements > 0;
+        });
+        return new Result(lineReplacer.lines, lineReplacer.replacements);
+    }
+
+    /**
+     * Copies the input to the output line by line, replacing the matches of every line.
+     * The unfinished line at the end of the buffer is moved to its start before reading on, and the buffer is doubled only if a single line fills it.
+     *
+     * @param in           the original file content
+     * @param out          the replaced file content
+     * @param lineReplacer the replacer of the lines
+     * @throws IOException if an I/O error occurs reading or writing the streams
+     */
+    private static void copyWithReplacements(InputStream in, OutputStream out, LineReplacer lineReplacer) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int length = 0;
+
+        int read;
+        while ((read = in.read(buffer, length, buffer.length - length)) != -1) {
+            int lineStart = 0;
+            for (int i = length; i < length + read; i++) {
+                if (buffer[i] == LF) {
+                    lineReplacer.write(buffer, lineStart, i + 1, out);
+                    lineStart = i + 1;
+                }
+            }
+            length += read - lineStart;
+            System.arraycopy(buffer, lineStart, buffer, 0, length);
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+        }
+        if (length > 0) {
+            lineReplacer.write(buffer, 0, length, out);
+        }
+    }
+
+    /**
+     * The replacer of the lines, reusing its decoder, matcher and builder for every line, and the counts of a replacement in progress.
+     */
+    private static final class LineReplacer {
+
+        /**
+         * The strict UTF-8 decoder of the lines.
+         */
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+
+        /**
+         * The matcher of the pattern, reset for every line.
+         */
+        private final Matcher matcher;
+
+        /**
+         * The replacement of every match.
+         */
+        private final String replacement;
+
+        /**
+         * The reusable builder of a replaced line.
+         */
+        private final StringBuilder replaced = new StringBuilder();
+
+        /**
+         * The number of changed lines.
+         */
+        private long lines;
+
+        /**
+         * The number of replaced matches.
+         */
+        private long replacements;
+
+        private LineReplacer(Matcher matcher, String replacement) {
+            this.matcher = matcher;
+            this.replacement = replacement;
+        }
+
+        /**
+         * Writes the line with the matches of the pattern replaced. A line without matches is written as its original bytes.
+         *
+         * @param bytes the buffer holding the line
+         * @param start the index of the line start
+         * @param end   the index following the line end, including its terminator if any
+         * @param out   the replaced file content
+         * @throws IOException if the line is not valid UTF-8 or an I/O error occurs writing the stream
+         */
+        private void write(byte[] bytes, int start, int end, OutputStream out) throws IOException {
+            int contentEnd = end;
+            if (contentEnd > start && bytes[contentEnd - 1] == LF) {
+                contentEnd--;
+                if (contentEnd > start && bytes[contentEnd - 1] == CR) {
+                    contentEnd--;
+                }
+            }
+
+            matcher.reset(decode(bytes, start, contentEnd));
+            if (!matcher.find()) {
+                out.write(bytes, start, end - start);
+                return;
+            }
+            replaced.setLength(0);
+            do {
+                matcher.appendReplacement(replaced, replacement);
+                replacements++;
+            } while (matcher.find());
+            matcher.appendTail(replaced);
+            lines++;
+            out.write(replaced.toString().getBytes(StandardCharsets.UTF_8));
+            out.write(bytes, contentEnd, end - contentEnd);
+        }
+
+        /**
+         * Decodes the bytes as UTF-8 into a string, which the matcher reads faster than any other character sequence.
+         * Malformed bytes are decoded as the replacement character, so only a line holding it is decoded again strictly to tell them apart.
+         *
+         * @param bytes the buffer holding the line
+         * @param start the index of the line start
+         * @param end   the index following the line content
+         * @return the decoded line
+         * @throws CharacterCodingException if the line is not valid UTF-8
+         */
+        private String decode(byte[] bytes, int start, int end) throws CharacterCodingException {
+            String line = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+            if (line.indexOf(REPLACEMENT_CHARACTER) >= 0) {
+                decoder.decode(ByteBuffer.wrap(bytes, start, end - start));
+            }
+            return line;
+        }
+    }
+
+    /**
+     * The outcome of a replacement.
+     *
+     * @param lines        the number of changed lines
+     * @param replacements the number of replaced matches
+     */
+    public record Result(long lines, long replacements) {
+    }
+}
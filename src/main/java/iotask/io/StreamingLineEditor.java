@@ -0,0 +1,171 @@
+package main.java.iotask.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * A {@link LineEditor} that inserts or deletes a single line of a text file without loading the file into memory.
+ * The file is streamed through a fixed size buffer into a temporary file in the same directory: the bytes up to the target line are copied as is,
+ * the change is spliced in and the rest of the file is copied after it. The temporary file then replaces the original one through {@link AtomicFileReplacer}.
+ * Lines are terminated by {@code '\n'} (which also covers {@code "\r\n"}), the original line terminators are preserved.
+ * The streams are opened through the {@link Compression} of the file, so a gzip-compressed file is edited the same way.
+ *
+ * @author Nikita Gubin
+ */
+public final class StreamingLineEditor implements LineEditor {
+
+    /**
+     * The size of the buffer used for streaming the file content.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The line feed byte terminating every line of the file.
+     */
+    private static final byte LF = '\n';
+
+    /**
+     * The line separator written after the inserted text and the padding lines.
+     */
+    static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * The state of the editor while it is positioned before the target line.
+     */
+    private static final int SEEKING = 0;
+
+    /**
+     * The state of the editor while it is dropping the bytes of the target line.
+     */
+    private static final int SKIPPING = 1;
+
+    /**
+     * The state of the editor after the change has been spliced in.
+     */
+    private static final int COPYING = 2;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void insertLine(Path path, int lineNumber, String text) throws IOException {
+        rewrite(path, lineNumber, toLine(text));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean deleteLine(Path path, int lineNumber) throws IOException {
+        return rewrite(path, lineNumber, null);
+    }
+
+    /**
+     * Encodes the text as a line terminated by the platform line separator.
+     *
+     * @param text the text of the line
+     * @return the encoded line
+     */
+    static byte[] toLine(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        byte[] line = new byte[bytes.length + LINE_SEPARATOR.length];
+        System.arraycopy(bytes, 0, line, 0, bytes.length);
+        System.arraycopy(LINE_SEPARATOR, 0, line, bytes.length, LINE_SEPARATOR.length);
+        return line;
+    }
+
+    /**
+     * Rewrites the file with the target line replaced by the insertion or dropped if the insertion is null.
+     *
+     * @param path       the path to the file
+     * @param lineNumber the one-based number of the target line
+     * @param insertion  the bytes to insert before the target line, or null to delete the target line
+     * @return true if the file was rewritten, false if the line to delete does not exist
+     * @throws IOException if an I/O error occurs reading or writing the file
+     */
+    private static boolean rewrite(Path path, int lineNumber, byte[] insertion) throws IOException {
+        Compression compression = Compression.of(path);
+        return AtomicFileReplacer.replace(path, temp -> {
+            try (InputStream in = compression.newInputStream(path); OutputStream out = compression.newOutputStream(temp)) {
+                return copyWithEdit(in, out, lineNumber, insertion);
+            }
+        });
+    }
+
+    /**
+     * Copies the input to the output, splicing the insertion in before the target line or dropping the target line.
+     *
+     * @param in         the original file content
+     * @param out        the edited file content
+     * @param lineNumber the one-based number of the target line
+     * @param insertion  the bytes to insert before the target line, or null to delete the target line
+     * @return true if the edit was applied, false if the line to delete does not exist
+     * @throws IOException if an I/O error occurs reading or writing the streams
+     */
+    private static boolean copyWithEdit(InputStream in, OutputStream out, int lineNumber, byte[] insertion) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long linesBefore = lineNumber - 1L;
+        long lineFeeds = 0;
+        int lastByte = -1;
+        boolean skipped = false;
+        int state = SEEKING;
+
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            int position = 0;
+            if (state == SEEKING) {
+                while (position < read && lineFeeds < linesBefore) {
+                    if (buffer[position++] == LF) {
+                        lineFeeds++;
+                    }
+                }
+                out.write(buffer, 0, position);
+                if (lineFeeds == linesBefore) {
+                    if (insertion != null) {
+                        out.write(insertion);
+                        state = COPYING;
+                    } else {
+                        state = SKIPPING;
+                    }
+                }
+            }
+            if (state == SKIPPING) {
+                int start = position;
+                while (position < read && buffer[position] != LF) {
+                    position++;
+                }
+                if (position > start || position < read) {
+                    skipped = true;
+                }
+                if (position < read) {
+                    position++;
+                    state = COPYING;
+                }
+            }
+            if (state == COPYING) {
+                out.write(buffer, position, read - position);
+            }
+            lastByte = buffer[read - 1];
+        }
+
+        if (state == SEEKING) {
+            if (insertion == null) {
+                return false;
+            }
+            long lines = lineFeeds;
+            if (lastByte != -1 && lastByte != LF) {
+                out.write(LINE_SEPARATOR);
+                lines++;
+            }
+            for (; lines < linesBefore; lines++) {
+                out.write(LINE_SEPARATOR);
+            }
+            out.write(insertion);
+            return true;
+        }
+        return state == COPYING || skipped;
+    }
+}
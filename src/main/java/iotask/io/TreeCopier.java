@@ -0,0 +1,160 @@
+package main.java.iotask.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+/**
+ * A class for copying the files selected by a {@link PathPattern} into a destination directory, keeping their paths relative to the pattern base.
+ * The tree is walked on the calling thread and every file is copied by a bounded pool of worker threads, so at most the configured number of files
+ * are read and written at once. A file whose copy has the same size and last modification time as the source is skipped,
+ * and every copy gets the last modification time of its source, so copying the same tree again only copies the changed files.
+ * A target that is the source file itself, reached through a link, is skipped too, as the engines truncate the target before reading the source.
+ * The gzip-compressed files are copied byte for byte by the {@link CopyEngine#TRANSFER} engine when the {@link CopyEngine#BUFFERED} engine is given,
+ * as copying them line by line would corrupt them.
+ *
+ * @author Nikita Gubin
+ * @see CopyEngine
+ */
+public final class TreeCopier {
+
+    /**
+     * The logger for {@link TreeCopier} class.
+     */
+    private static final Logger logger = Logger.getLogger(TreeCopier.class.getName());
+
+    /**
+     * The engine copying every file, or null to choose the engine by the file size.
+     */
+    private final CopyEngine engine;
+
+    /**
+     * The file size from which the {@link CopyEngine#MMAP} engine is chosen when no engine is given.
+     */
+    private final long mmapThreshold;
+
+    /**
+     * The maximum number of files copied at once.
+     */
+    private final int parallelism;
+
+    /**
+     * Constructs a new {@link TreeCopier}.
+     *
+     * @param engine        the engine copying every file, or null to choose the engine by the file size
+     * @param mmapThreshold the file size from which the {@link CopyEngine#MMAP} engine is chosen when no engine is given
+     * @param parallelism   the maximum number of files copied at once
+     */
+    public TreeCopier(CopyEngine engine, long mmapThreshold, int parallelism) {
+        this.engine = engine;
+        this.mmapThreshold = mmapThreshold;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Copies the selected files into the destination directory, creating the missing directories.
+     * A file that cannot be copied is logged and counted as failed, the other files are still copied.
+     *
+     * @param source      the pattern selecting the files to copy
+     * @param destination the destination directory
+     * @return the outcome of the copy
+     * @throws IOException if an I/O error occurs walking the source tree
+     */
+    public Result copy(PathPattern source, Path destination) throws IOException {
+        Path excluded = destination.toAbsolutePath().normalize();
+        Map<Path, Boolean> createdDirectories = new ConcurrentHashMap<>();
+        AtomicLong copied = new AtomicLong();
+        AtomicLong skipped = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+
+        try (BoundedWorkers workers = new BoundedWorkers(parallelism)) {
+            source.walk((file, relative, attributes) -> {
+                if (file.toAbsolutePath().normalize().startsWith(excluded)) {
+                    return;
+                }
+                Path target = destination.resolve(relative.toString());
+                workers.execute(() -> {
+                    try {
+                        long written = copyFile(file, attributes, target, createdDirectories);
+                        if (written < 0) {
+                            skipped.incrementAndGet();
+                        } else {
+                            copied.incrementAndGet();
+                            bytes.addAndGet(written);
+                        }
+                    } catch (IOException | UncheckedIOException e) {
+                        failed.incrementAndGet();
+                        logger.log(Level.SEVERE, "Error occurred copying " + file + " to " + target, e);
+                    }
+                });
+            });
+        }
+        return new Result(copied.get(), skipped.get(), failed.get(), bytes.get());
+    }
+
+    /**
+     * Copies the file unless its copy is up to date.
+     *
+     * @param source             the path to the source file
+     * @param attributes         the attributes of the source file
+     * @param target             the path to the copy
+     * @param createdDirectories the directories already created by this copy
+     * @return the number of bytes written, or -1 if the copy is up to date or is the source file itself
+     * @throws IOException if an I/O error occurs reading or writing the files
+     */
+    private long copyFile(Path source, BasicFileAttributes attributes, Path target, Map<Path, Boolean> createdDirectories) throws IOException {
+        try {
+            BasicFileAttributes targetAttributes = Files.readAttributes(target, BasicFileAttributes.class);
+            if (targetAttributes.size() == attributes.size() && targetAttributes.lastModifiedTime().equals(attributes.lastModifiedTime())
+                    || Files.isSameFile(source, target)) {
+                return -1;
+            }
+        } catch (NoSuchFileException e) {
+            Path parent = target.getParent();
+            if (parent != null) {
+                createdDirectories.computeIfAbsent(parent, directory -> {
+                    try {
+                        Files.createDirectories(directory);
+                        return Boolean.TRUE;
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            }
+        }
+
+        CopyEngine fileEngine = engine != null ? engine : CopyEngine.forSize(attributes.size(), mmapThreshold);
+        if (fileEngine == CopyEngine.BUFFERED && Compression.of(source) == Compression.GZIP) {
+            logger.log(Level.FINE, "The buffered engine copies text lines, copying the compressed file with the transfer engine: {0}", source);
+            fileEngine = CopyEngine.TRANSFER;
+        }
+        try {
+            long written = fileEngine.copy(source, target);
+            Files.setLastModifiedTime(target, attributes.lastModifiedTime());
+            return written;
+        } finally {
+            FileVersions.changed(target);
+        }
+    }
+
+    /**
+     * The outcome of a tree copy.
+     *
+     * @param copied  the number of files copied
+     * @param skipped the number of files skipped because their copies were up to date
+     * @param failed  the number of files that could not be copied
+     * @param bytes   the number of bytes written
+     */
+    public record Result(long copied, long skipped, long failed, long bytes) {
+    }
+}
@@ -0,0 +1,158 @@
+package main.java.iotask.io;
+
+import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+/**
+ * A class for deleting the files selected by a {@link PathPattern} and the directories left empty.
+ * The tree is walked on the calling thread and the files are deleted by a bounded pool of worker threads.
+ * The directories are removed bottom-up once all files are deleted: a whole directory is removed together with its subdirectories,
+ * while for a glob pattern only the directories emptied by the deletion are removed, up to but excluding the base directory of the pattern.
+ *
+ * @author Nikita Gubin
+ */
+public final class TreeDeleter {
+
+    /**
+     * The logger for {@link TreeDeleter} class.
+     */
+    private static final Logger logger = Logger.getLogger(TreeDeleter.class.getName());
+
+    /**
+     * The maximum number of files deleted at once.
+     */
+    private final int parallelism;
+
+    /**
+     * Constructs a new {@link TreeDeleter}.
+     *
+     * @param parallelism the maximum number of files deleted at once
+     */
+    public TreeDeleter(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Deletes the selected files and the directories left empty.
+     * A file that cannot be deleted is logged and counted as failed, the other files are still deleted.
+     *
+     * @param source the pattern selecting the files to delete
+     * @return the outcome of the deletion
+     * @throws IOException if an I/O error occurs walking the tree
+     */
+    public Result delete(PathPattern source) throws IOException {
+        Set<Path> emptiedDirectories = ConcurrentHashMap.newKeySet();
+        AtomicLong deleted = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+
+        try (BoundedWorkers workers = new BoundedWorkers(parallelism)) {
+            source.walk((file, relative, attributes) -> workers.execute(() -> {
+                try {
+                    if (Files.deleteIfExists(file)) {
+                        FileVersions.changed(file);
+                        deleted.incrementAndGet();
+                        bytes.addAndGet(attributes.size());
+                        Path parent = file.getParent();
+                        if (parent != null) {
+                            emptiedDirectories.add(parent);
+                        }
+                    }
+                } catch (IOException e) {
+                    failed.incrementAndGet();
+                    logger.log(Level.SEVERE, "Error occurred deleting " + file, e);
+                }
+            }));
+        }
+
+        long directories = source.isGlob() ? deleteEmptied(emptiedDirectories, source.base()) : deleteDirectories(source.base());
+        return new Result(deleted.get(), directories, failed.get(), bytes.get());
+    }
+
+    /**
+     * Removes the emptied directories and their ancestors left empty, deepest first, up to but excluding the base directory.
+     *
+     * @param emptiedDirectories the directories files were deleted from
+     * @param base               the base directory of the pattern
+     * @return the number of directories removed
+     * @throws IOException if an I/O error occurs removing a directory
+     */
+    private static long deleteEmptied(Set<Path> emptiedDirectories, Path base) throws IOException {
+        Set<Path> candidates = new HashSet<>();
+        for (Path directory : emptiedDirectories) {
+            for (Path current = directory; current != null && !current.equals(base) && current.startsWith(base); current = current.getParent()) {
+                candidates.add(current);
+            }
+        }
+        List<Path> deepestFirst = new ArrayList<>(candidates);
+        deepestFirst.sort(Comparator.comparingInt(Path::getNameCount).reversed());
+
+        long removed = 0;
+        for (Path directory : deepestFirst) {
+            try {
+                Files.delete(directory);
+                removed++;
+            } catch (DirectoryNotEmptyException | NoSuchFileException e) {
+                logger.log(Level.FINE, "Directory kept: {0}", directory);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Removes the directory and all its subdirectories, deepest first. The directories still holding files are kept.
+     *
+     * @param base the directory
+     * @return the number of directories removed
+     * @throws IOException if an I/O error occurs walking the tree or removing a directory
+     */
+    private static long deleteDirectories(Path base) throws IOException {
+        if (!Files.isDirectory(base)) {
+            return 0;
+        }
+        AtomicLong removed = new AtomicLong();
+        Files.walkFileTree(base, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult postVisitDirectory(Path directory, IOException e) throws IOException {
+                if (e != null) {
+                    throw e;
+                }
+                try {
+                    Files.delete(directory);
+                    removed.incrementAndGet();
+                } catch (DirectoryNotEmptyException ex) {
+                    logger.log(Level.WARNING, "Directory is not empty and was kept: {0}", directory);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return removed.get();
+    }
+
+    /**
+     * The outcome of a tree deletion.
+     *
+     * @param files       the number of files deleted
+     * @param directories the number of directories removed
+     * @param failed      the number of files that could not be deleted
+     * @param bytes       the number of bytes of the deleted files
+     */
+    public record Result(long files, long directories, long failed, long bytes) {
+    }
+}
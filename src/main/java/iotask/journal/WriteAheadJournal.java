@@ -0,0 +1,390 @@
+package main.java.iotask.journal;
+
+import main.java.iotask.config.ApplicationConfig;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * A best-effort write-ahead journal of the commands modifying files, recovering the commands interrupted by a crash of the process.
+ * Every command is appended to the journal before it is applied to its files, and an applied marker is appended once it has been applied,
+ * so the commands without a marker are the ones in flight when the process stopped.
+ * <p>
+ * The journal holds logical records: the command line together with the fingerprints (existence, size and modification time)
+ * of all the files the command touches, taken before the command. On startup an interrupted command is replayed if, and only if,
+ * all its files still have the fingerprints it was journaled with, that is if the crash hit before the command changed anything.
+ * A command whose files have changed may have been applied partly, such as a file truncated but not written yet or a tree deleted halfway;
+ * it cannot be completed from a logical record, so it is reported with a warning naming the command and left to the user.
+ * <p>
+ * The journal is written to the operating system without synchronizing it to the disk: the writes of the process, to the journal and to the files alike,
+ * outlive a crash of the process, while a crash of the operating system or a power loss may lose the commands applied since the files
+ * were last flushed, and the journal does not protect against it.
+ * <p>
+ * Once the journal grows over the checkpoint size and no command is in flight, the journal is truncated.
+ * Every record is framed by its length and CRC-32 checksum, so a torn record at the end of the journal is ignored.
+ *
+ * @author Nikita Gubin
+ */
+public final class WriteAheadJournal {
+
+    /**
+     * The logger for {@link WriteAheadJournal} class.
+     */
+    private static final Logger logger = Logger.getLogger(WriteAheadJournal.class.getName());
+
+    /**
+     * The setting enabling the journal.
+     */
+    public static final String ENABLED_SETTING = "iotask.journal.enabled";
+
+    /**
+     * The setting holding the path to the journal file.
+     */
+    public static final String PATH_SETTING = "iotask.journal.path";
+
+    /**
+     * The setting holding the journal size in bytes from which the journal is truncated at the next checkpoint.
+     */
+    public static final String CHECKPOINT_SIZE_SETTING = "iotask.journal.checkpointBytes";
+
+    /**
+     * The size of the frame header of a record: the payload length and the checksum.
+     */
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    /**
+     * The kind of the record of a journaled command.
+     */
+    private static final byte COMMAND = 0;
+
+    /**
+     * The kind of the record marking a command as applied.
+     */
+    private static final byte APPLIED = 1;
+
+    /**
+     * The singleton instance of the {@link WriteAheadJournal}, opened on first use.
+     */
+    private static WriteAheadJournal instance;
+
+    /**
+     * The channel of the journal file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The journal size in bytes from which the journal is truncated at the next checkpoint.
+     */
+    private final long checkpointBytes;
+
+    /**
+     * The lock guarding the state of the journal below.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * The sequence number of the last appended command.
+     */
+    private long appendedSequence;
+
+    /**
+     * The number of appended commands that have not been applied yet.
+     */
+    private int inFlight;
+
+    /**
+     * The commands left unapplied by the previous run, or null once they have been recovered.
+     */
+    private List<Record> unappliedRecords;
+
+    private WriteAheadJournal(Path path) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        channel = FileChannel.open(path, READ, WRITE, CREATE);
+        checkpointBytes = ApplicationConfig.getLong(CHECKPOINT_SIZE_SETTING, 16L * 1024 * 1024);
+        unappliedRecords = readUnappliedRecords();
+        logger.log(Level.INFO, "Journal opened: {0}", path);
+    }
+
+    /**
+     * Returns the singleton instance of the {@link WriteAheadJournal}, opening the journal file given by the application settings on first use.
+     *
+     * @return the singleton instance of the {@link WriteAheadJournal}
+     * @throws IOException if the journal file cannot be opened or read
+     * @see WriteAheadJournal#PATH_SETTING
+     */
+    public static synchronized WriteAheadJournal getInstance() throws IOException {
+        if (instance == null) {
+            instance = new WriteAheadJournal(Paths.get(ApplicationConfig.getString(PATH_SETTING, "journal/iotask.wal")));
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the commands left unapplied by the previous run, in the journal order. The records are returned only once:
+     * the caller replays them and then calls {@link WriteAheadJournal#checkpoint()}.
+     *
+     * @return the commands to replay
+     */
+    public List<Record> recover() {
+        synchronized (lock) {
+            List<Record> records = unappliedRecords != null ? unappliedRecords : List.of();
+            unappliedRecords = null;
+            return records;
+        }
+    }
+
+    /**
+     * Appends the command to the journal.
+     * Every call must be followed by {@link WriteAheadJournal#applied(long)} once the command has been applied or has failed.
+     *
+     * @param commandLine the command line
+     * @param paths       the paths to the files the command modifies, a directory standing for every file inside it
+     * @return the sequence number of the command
+     * @throws IOException if an I/O error occurs writing the journal
+     */
+    public long append(String commandLine, List<Path> paths) throws IOException {
+        List<FileState> files = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            Path file = path.toAbsolutePath().normalize();
+            files.add(new FileState(file, Fingerprint.of(file)));
+        }
+
+        synchronized (lock) {
+            long sequence = appendedSequence + 1;
+            write(new Record(sequence, commandLine, files).encode());
+            appendedSequence = sequence;
+            inFlight++;
+            return sequence;
+        }
+    }
+
+    /**
+     * Marks an appended command as applied, and checkpoints the journal if it has grown over the checkpoint size and no command is in flight.
+     *
+     * @param sequence the sequence number of the command
+     * @throws IOException if an I/O error occurs writing or checkpointing the journal
+     */
+    public void applied(long sequence) throws IOException {
+        synchronized (lock) {
+            inFlight--;
+            write(encodeApplied(sequence));
+            if (inFlight == 0 && channel.size() >= checkpointBytes) {
+                checkpoint();
+            }
+        }
+    }
+
+    /**
+     * Truncates the journal. Does nothing while a command is in flight, as its record must stay in the journal until it has been applied.
+     *
+     * @throws IOException if an I/O error occurs truncating the journal
+     */
+    public void checkpoint() throws IOException {
+        synchronized (lock) {
+            if (inFlight > 0) {
+                return;
+            }
+            channel.truncate(0);
+            logger.log(Level.INFO, "Journal checkpoint completed");
+        }
+    }
+
+    /**
+     * Appends the framed payload to the journal. Must be called holding the lock.
+     *
+     * @param payload the payload of the record
+     * @throws IOException if an I/O error occurs writing the journal
+     */
+    private void write(byte[] payload) throws IOException {
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        frame.putInt(payload.length).putInt(checksum(payload)).put(payload).flip();
+        while (frame.hasRemaining()) {
+            channel.write(frame, channel.size());
+        }
+    }
+
+    /**
+     * Reads the records of the journal and selects the commands without an applied marker whose files all still have the fingerprints
+     * the command was journaled with. The other interrupted commands are reported as possibly applied partly.
+     *
+     * @return the commands left unapplied by the previous run, in the journal order
+     * @throws IOException if an I/O error occurs reading the journal
+     */
+    private List<Record> readUnappliedRecords() throws IOException {
+        Map<Long, Record> interrupted = new LinkedHashMap<>();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        long position = 0;
+        long size = channel.size();
+        while (position + HEADER_SIZE <= size) {
+            header.clear();
+            channel.read(header, position);
+            int length = header.getInt(0);
+            if (length <= 0 || position + HEADER_SIZE + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            channel.read(payload, position + HEADER_SIZE);
+            if (checksum(payload.array()) != header.getInt(Integer.BYTES)) {
+                break;
+            }
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload.array()))) {
+                if (in.readByte() == APPLIED) {
+                    interrupted.remove(in.readLong());
+                } else {
+                    Record record = Record.decode(in);
+                    interrupted.put(record.sequence(), record);
+                    appendedSequence = Math.max(appendedSequence, record.sequence());
+                }
+            } catch (EOFException e) {
+                throw new IOException("Malformed journal record", e);
+            }
+            position += HEADER_SIZE + length;
+        }
+        if (position < size) {
+            logger.log(Level.WARNING, "Ignoring {0,number,#} bytes of a torn journal record", size - position);
+        }
+
+        List<Record> records = new ArrayList<>();
+        for (Record record : interrupted.values()) {
+            if (record.isUnapplied()) {
+                records.add(record);
+            } else {
+                logger.log(Level.WARNING, "Journaled command was interrupted after changing its files and may be applied partly, check them: {0}", record.commandLine());
+            }
+        }
+        return records;
+    }
+
+    private static byte[] encodeApplied(long sequence) {
+        return ByteBuffer.allocate(1 + Long.BYTES).put(APPLIED).putLong(sequence).array();
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * A journaled command.
+     *
+     * @param sequence    the sequence number of the command, matched by its applied marker
+     * @param commandLine the command line
+     * @param files       the files the command modifies with their fingerprints before the command
+     */
+    public record Record(long sequence, String commandLine, List<FileState> files) {
+
+        /**
+         * Tells whether the command has not been applied, that is whether all its files still have the fingerprints the command was journaled with.
+         *
+         * @return true if the command must be replayed
+         * @throws IOException if an I/O error occurs reading the file attributes
+         */
+        boolean isUnapplied() throws IOException {
+            for (FileState file : files) {
+                if (!file.fingerprint().equals(Fingerprint.of(file.path()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        byte[] encode() {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeByte(COMMAND);
+                out.writeLong(sequence);
+                writeString(out, commandLine);
+                out.writeInt(files.size());
+                for (FileState file : files) {
+                    writeString(out, file.path().toString());
+                    out.writeBoolean(file.fingerprint().exists());
+                    out.writeLong(file.fingerprint().size());
+                    out.writeLong(file.fingerprint().modifiedNanos());
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return bytes.toByteArray();
+        }
+
+        static Record decode(DataInputStream in) throws IOException {
+            long sequence = in.readLong();
+            String commandLine = readString(in);
+            int count = in.readInt();
+            if (count < 0) {
+                throw new IOException("Malformed journal record");
+            }
+            List<FileState> files = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                Path path = Paths.get(readString(in));
+                files.add(new FileState(path, new Fingerprint(in.readBoolean(), in.readLong(), in.readLong())));
+            }
+            return new Record(sequence, commandLine, files);
+        }
+
+        private static void writeString(DataOutputStream out, String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private static String readString(DataInputStream in) throws IOException {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * A file modified by a journaled command.
+     *
+     * @param path        the absolute normalized path to the file
+     * @param fingerprint the fingerprint of the file before the command
+     */
+    public record FileState(Path path, Fingerprint fingerprint) {
+    }
+
+    /**
+     * The state of a file a command is journaled with.
+     *
+     * @param exists        whether the file exists
+     * @param size          the size of the file in bytes, or zero if it does not exist
+     * @param modifiedNanos the last modification time of the file in nanoseconds since the epoch, or zero if it does not exist
+     */
+    public record Fingerprint(boolean exists, long size, long modifiedNanos) {
+
+        static Fingerprint of(Path path) throws IOException {
+            if (Files.notExists(path)) {
+                return new Fingerprint(false, 0, 0);
+            }
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new Fingerprint(true, attributes.size(), attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS));
+        }
+    }
+}
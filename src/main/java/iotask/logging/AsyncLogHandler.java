@@ -0,0 +1,238 @@
+package main.java.iotask.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+
+/**
+ * A {@link Handler} that hands the log records over to a background writer thread through a bounded ring buffer,
+ * so the logging threads never wait for the records to be formatted and written.
+ * The writer thread publishes the records to the target handlers and flushes them whenever the buffer has been drained.
+ * When the buffer is full, records below {@link Level#WARNING} are dropped and counted, while more severe records wait for free space
+ * until the handler is closed. The records left in the buffer when the writer thread stops are written by {@link #close()}.
+ * <p>
+ * The handler is configured in {@code logging.properties} with the following properties:
+ * <ul>
+ * <li>{@code main.java.iotask.logging.AsyncLogHandler.handlers} - the comma separated class names of the target handlers</li>
+ * <li>{@code main.java.iotask.logging.AsyncLogHandler.capacity} - the capacity of the buffer, 8192 by default</li>
+ * <li>{@code main.java.iotask.logging.AsyncLogHandler.level} - the level of the handler, {@link Level#ALL} by default</li>
+ * </ul>
+ *
+ * @author Nikita Gubin
+ */
+public class AsyncLogHandler extends Handler {
+
+    /**
+     * The default capacity of the buffer.
+     */
+    private static final int DEFAULT_CAPACITY = 8192;
+
+    /**
+     * The maximum number of records published by the writer thread before the target handlers are flushed.
+     */
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * The time in milliseconds a record of level {@link Level#WARNING} or above waits for free space before the handler is checked for being closed.
+     */
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    /**
+     * The buffer of the records waiting to be written.
+     */
+    private final BlockingQueue<LogRecord> buffer;
+
+    /**
+     * The handlers the records are written to.
+     */
+    private final Handler[] targets;
+
+    /**
+     * The thread writing the records to the target handlers.
+     */
+    private final Thread writer;
+
+    /**
+     * The number of records dropped because the buffer was full.
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Whether the handler has been closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Constructs a new {@link AsyncLogHandler} configured by the {@link LogManager} properties.
+     */
+    public AsyncLogHandler() {
+        this(configuredCapacity(), configuredTargets());
+        String level = LogManager.getLogManager().getProperty(getClass().getName() + ".level");
+        if (level != null) {
+            setLevel(Level.parse(level.trim()));
+        }
+    }
+
+    /**
+     * Constructs a new {@link AsyncLogHandler} writing to the specified handlers through a buffer of the specified capacity.
+     *
+     * @param capacity the capacity of the buffer
+     * @param targets  the handlers the records are written to
+     */
+    public AsyncLogHandler(int capacity, Handler... targets) {
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.targets = targets;
+        this.writer = new Thread(this::writeRecords, "async-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Puts the record into the buffer to be written by the background thread.
+     * The caller of the logger is resolved before the record leaves the logging thread.
+     *
+     * @param record the log record
+     */
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+        record.getSourceClassName();
+
+        if (buffer.offer(record)) {
+            return;
+        }
+        if (record.getLevel().intValue() < Level.WARNING.intValue()) {
+            dropped.incrementAndGet();
+            return;
+        }
+        try {
+            while (!buffer.offer(record, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (closed) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            dropped.incrementAndGet();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Does nothing, the target handlers are flushed by the background thread whenever the buffer has been drained.
+     */
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * Writes the buffered records, reports the number of dropped records and closes the target handlers.
+     * The records put into the buffer after the writer thread has stopped are written by the closing thread.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!writer.isAlive()) {
+            List<LogRecord> leftover = new ArrayList<>();
+            buffer.drainTo(leftover);
+            if (!leftover.isEmpty()) {
+                publishToTargets(leftover);
+            }
+        }
+
+        long droppedRecords = dropped.get();
+        if (droppedRecords > 0) {
+            publishToTargets(List.of(new LogRecord(Level.WARNING, droppedRecords + " log records were dropped because the log buffer was full")));
+        }
+        for (Handler target : targets) {
+            target.close();
+        }
+    }
+
+    /**
+     * Returns the number of records dropped because the buffer was full.
+     *
+     * @return the number of dropped records
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void writeRecords() {
+        List<LogRecord> batch = new ArrayList<>(BATCH_SIZE);
+        while (!closed || !buffer.isEmpty()) {
+            try {
+                LogRecord record = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (record == null) {
+                    continue;
+                }
+                batch.add(record);
+                buffer.drainTo(batch, BATCH_SIZE - 1);
+                publishToTargets(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void publishToTargets(List<LogRecord> records) {
+        for (Handler target : targets) {
+            try {
+                for (LogRecord record : records) {
+                    target.publish(record);
+                }
+                target.flush();
+            } catch (RuntimeException e) {
+                reportError("Could not write log records", e, ErrorManager.WRITE_FAILURE);
+            }
+        }
+    }
+
+    private static int configuredCapacity() {
+        String capacity = LogManager.getLogManager().getProperty(AsyncLogHandler.class.getName() + ".capacity");
+        try {
+            return capacity != null ? Integer.parseInt(capacity.trim()) : DEFAULT_CAPACITY;
+        } catch (NumberFormatException e) {
+            return DEFAULT_CAPACITY;
+        }
+    }
+
+    private static Handler[] configuredTargets() {
+        String handlers = LogManager.getLogManager().getProperty(AsyncLogHandler.class.getName() + ".handlers");
+        List<Handler> targets = new ArrayList<>();
+        if (handlers != null) {
+            for (String className : handlers.split("[,\\s]+")) {
+                if (className.isEmpty()) {
+                    continue;
+                }
+                try {
+                    targets.add((Handler) ClassLoader.getSystemClassLoader().loadClass(className).getDeclaredConstructor().newInstance());
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    System.err.println("Could not create log handler " + className + ": " + e);
+                }
+            }
+        }
+        return targets.toArray(new Handler[0]);
+    }
+}
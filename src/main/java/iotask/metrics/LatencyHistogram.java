@@ -0,0 +1,135 @@
+package main.java.iotask.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of latencies in nanoseconds with log-linear buckets, in the manner of HdrHistogram.
+ * Values below 128 are counted exactly, larger values are counted in buckets keeping the 7 most significant bits,
+ * so every reported percentile is within 1.6% (1/64) of the recorded value, whatever its magnitude.
+ *
+ * @author Nikita Gubin
+ */
+public final class LatencyHistogram {
+
+    /**
+     * The number of most significant bits of a value kept by its bucket.
+     */
+    private static final int PRECISION_BITS = 7;
+
+    /**
+     * The number of buckets for every power of two above the exact range.
+     */
+    private static final int HALF_RANGE = 1 << (PRECISION_BITS - 1);
+
+    /**
+     * The number of buckets covering all non-negative long values.
+     */
+    private static final int BUCKET_COUNT = (Long.SIZE - PRECISION_BITS + 1) * HALF_RANGE;
+
+    /**
+     * The number of values recorded in every bucket.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * The number of recorded values.
+     */
+    private final LongAdder totalCount = new LongAdder();
+
+    /**
+     * The sum of recorded values.
+     */
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * Records the latency.
+     *
+     * @param nanos the latency in nanoseconds, negative values are recorded as zero
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        totalCount.increment();
+        totalNanos.add(value);
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     *
+     * @return the number of recorded latencies
+     */
+    public long count() {
+        return totalCount.sum();
+    }
+
+    /**
+     * Returns the mean of the recorded latencies.
+     *
+     * @return the mean latency in nanoseconds, or 0 if nothing has been recorded
+     */
+    public double mean() {
+        long count = count();
+        return count == 0 ? 0 : (double) totalNanos.sum() / count;
+    }
+
+    /**
+     * Returns the latency below or at which the specified percentage of the recorded latencies lies.
+     *
+     * @param percentile the percentage, from 0 to 100
+     * @return the highest latency of the bucket holding the percentile in nanoseconds, or 0 if nothing has been recorded
+     */
+    public long percentile(double percentile) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return highestValueOf(i);
+            }
+        }
+        return highestValueOf(BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Returns the highest recorded latency, within the precision of the histogram.
+     *
+     * @return the maximum latency in nanoseconds, or 0 if nothing has been recorded
+     */
+    public long max() {
+        for (int i = BUCKET_COUNT - 1; i >= 0; i--) {
+            if (counts.get(i) > 0) {
+                return highestValueOf(i);
+            }
+        }
+        return 0;
+    }
+
+    private static int bucketOf(long value) {
+        if (value < 2 * HALF_RANGE) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - PRECISION_BITS;
+        return shift * HALF_RANGE + (int) (value >>> shift);
+    }
+
+    private static long highestValueOf(int bucket) {
+        if (bucket < 2 * HALF_RANGE) {
+            return bucket;
+        }
+        int shift = bucket / HALF_RANGE - 1;
+        long mantissa = bucket - (long) shift * HALF_RANGE;
+        long highest = ((mantissa + 1) << shift) - 1;
+        return highest < 0 ? Long.MAX_VALUE : highest;
+    }
+}
@@ -0,0 +1,88 @@
+package main.java.iotask.metrics;
+
+import java.util.Map;
+
+/**
+ * The management interface of the {@link MetricsRegistry}, exposed over JMX under {@link MetricsRegistry#OBJECT_NAME}.
+ *
+ * @author Nikita Gubin
+ */
+public interface MetricsMXBean {
+
+    /**
+     * Returns the number of executed commands, keyed by the command name.
+     *
+     * @return the command counts
+     */
+    Map<String, Long> getCommandCounts();
+
+    /**
+     * Returns the median command latency in microseconds, keyed by the command name.
+     *
+     * @return the median latencies
+     */
+    Map<String, Double> getP50LatencyMicros();
+
+    /**
+     * Returns the 99th percentile command latency in microseconds, keyed by the command name.
+     *
+     * @return the 99th percentile latencies
+     */
+    Map<String, Double> getP99LatencyMicros();
+
+    /**
+     * Returns the 99.9th percentile command latency in microseconds, keyed by the command name.
+     *
+     * @return the 99.9th percentile latencies
+     */
+    Map<String, Double> getP999LatencyMicros();
+
+    /**
+     * Returns the number of failed commands, keyed by the failure cause.
+     *
+     * @return the error counts
+     */
+    Map<String, Long> getErrorCounts();
+
+    /**
+     * Returns the number of bytes read by the commands.
+     *
+     * @return the number of bytes read
+     */
+    long getBytesRead();
+
+    /**
+     * Returns the number of bytes written by the commands.
+     *
+     * @return the number of bytes written
+     */
+    long getBytesWritten();
+
+    /**
+     * Returns the number of files touched by the commands.
+     *
+     * @return the number of files touched
+     */
+    long getFilesTouched();
+
+    /**
+     * Returns the number of file content cache hits.
+     *
+     * @return the number of cache hits
+     */
+    long getCacheHits();
+
+    /**
+     * Returns the number of file content cache misses.
+     *
+     * @return the number of cache misses
+     */
+    long getCacheMisses();
+
+    /**
+     * Returns the human-readable report of all metrics.
+     *
+     * @return the metrics report
+     */
+    String getReport();
+}
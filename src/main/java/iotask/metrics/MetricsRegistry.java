@@ -0,0 +1,237 @@
+package main.java.iotask.metrics;
+
+import main.java.iotask.exception.CommandException;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+/**
+ * A registry of the application metrics: the latency histogram of every command, the error counts by failure cause,
+ * the numbers of bytes read and written and of files touched by the commands, and the hits and misses of the file content cache.
+ * The registry is a singleton registered as an MXBean on the platform MBean server, so the metrics can be watched with any JMX client.
+ *
+ * @author Nikita Gubin
+ * @see LatencyHistogram
+ */
+public final class MetricsRegistry implements MetricsMXBean {
+
+    /**
+     * The logger for {@link MetricsRegistry} class.
+     */
+    private static final Logger logger = Logger.getLogger(MetricsRegistry.class.getName());
+
+    /**
+     * The JMX object name the registry is registered under.
+     */
+    public static final String OBJECT_NAME = "main.java.iotask:type=Metrics";
+
+    /**
+     * The singleton instance of the {@link MetricsRegistry}.
+     */
+    private static final MetricsRegistry instance = new MetricsRegistry();
+
+    /**
+     * The latency histograms, keyed by the command name.
+     */
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+
+    /**
+     * The error counts, keyed by the failure cause.
+     */
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    /**
+     * The number of bytes read by the commands.
+     */
+    private final LongAdder bytesRead = new LongAdder();
+
+    /**
+     * The number of bytes written by the commands.
+     */
+    private final LongAdder bytesWritten = new LongAdder();
+
+    /**
+     * The number of files touched by the commands.
+     */
+    private final LongAdder filesTouched = new LongAdder();
+
+    /**
+     * The number of file content cache hits.
+     */
+    private final LongAdder cacheHits = new LongAdder();
+
+    /**
+     * The number of file content cache misses.
+     */
+    private final LongAdder cacheMisses = new LongAdder();
+
+    private MetricsRegistry() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            logger.log(Level.WARNING, "Could not register metrics MBean", e);
+        }
+    }
+
+    /**
+     * Returns the singleton instance of the {@link MetricsRegistry}.
+     *
+     * @return the singleton instance of the {@link MetricsRegistry}
+     */
+    public static MetricsRegistry getInstance() {
+        return instance;
+    }
+
+    /**
+     * Records the execution of a command.
+     *
+     * @param commandName  the name of the command
+     * @param elapsedNanos the time the command took in nanoseconds
+     * @param error        the exception the command failed with, or null if it succeeded
+     */
+    public void recordCommand(String commandName, long elapsedNanos, Exception error) {
+        latencies.computeIfAbsent(commandName, name -> new LatencyHistogram()).record(elapsedNanos);
+        if (error != null) {
+            errors.computeIfAbsent(causeOf(error), cause -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * Adds the number of bytes read by a command.
+     *
+     * @param bytes the number of bytes read
+     */
+    public void addBytesRead(long bytes) {
+        bytesRead.add(bytes);
+    }
+
+    /**
+     * Adds the number of bytes written by a command.
+     *
+     * @param bytes the number of bytes written
+     */
+    public void addBytesWritten(long bytes) {
+        bytesWritten.add(bytes);
+    }
+
+    /**
+     * Adds the number of files touched by a command.
+     *
+     * @param files the number of files touched
+     */
+    public void addFilesTouched(long files) {
+        filesTouched.add(files);
+    }
+
+    /**
+     * Counts a file content cache hit.
+     */
+    public void addCacheHit() {
+        cacheHits.increment();
+    }
+
+    /**
+     * Counts a file content cache miss.
+     */
+    public void addCacheMiss() {
+        cacheMisses.increment();
+    }
+
+    @Override
+    public Map<String, Long> getCommandCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        latencies.forEach((name, histogram) -> counts.put(name, histogram.count()));
+        return counts;
+    }
+
+    @Override
+    public Map<String, Double> getP50LatencyMicros() {
+        return latencyMicros(histogram -> histogram.percentile(50));
+    }
+
+    @Override
+    public Map<String, Double> getP99LatencyMicros() {
+        return latencyMicros(histogram -> histogram.percentile(99));
+    }
+
+    @Override
+    public Map<String, Double> getP999LatencyMicros() {
+        return latencyMicros(histogram -> histogram.percentile(99.9));
+    }
+
+    @Override
+    public Map<String, Long> getErrorCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        errors.forEach((cause, count) -> counts.put(cause, count.sum()));
+        return counts;
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public long getFilesTouched() {
+        return filesTouched.sum();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    @Override
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-10s %10s %12s %12s %12s %12s %12s%n", "command", "count", "mean(us)", "p50(us)", "p99(us)", "p999(us)", "max(us)"));
+        new TreeMap<>(latencies).forEach((name, histogram) -> report.append(String.format("%-10s %10d %12.1f %12.1f %12.1f %12.1f %12.1f%n",
+                name, histogram.count(), histogram.mean() / 1e3, histogram.percentile(50) / 1e3,
+                histogram.percentile(99) / 1e3, histogram.percentile(99.9) / 1e3, histogram.max() / 1e3)));
+        report.append(String.format("bytes read: %d, bytes written: %d, files touched: %d%n", getBytesRead(), getBytesWritten(), getFilesTouched()));
+        long cacheLookups = getCacheHits() + getCacheMisses();
+        if (cacheLookups > 0) {
+            report.append(String.format("cache hits: %d, misses: %d (hit rate %.1f%%)%n", getCacheHits(), getCacheMisses(), 100.0 * getCacheHits() / cacheLookups));
+        }
+        report.append("errors: ").append(getErrorCounts());
+        return report.toString();
+    }
+
+    private Map<String, Double> latencyMicros(ToDoubleFunction<LatencyHistogram> statistic) {
+        Map<String, Double> values = new TreeMap<>();
+        latencies.forEach((name, histogram) -> values.put(name, statistic.applyAsDouble(histogram) / 1e3));
+        return values;
+    }
+
+    /**
+     * Returns the name of the failure cause: the class of the underlying exception, or the class of the exception itself if it has no cause.
+     *
+     * @param error the exception the command failed with
+     * @return the name of the failure cause
+     * @see CommandException
+     */
+    private static String causeOf(Exception error) {
+        Throwable cause = error.getCause() != null ? error.getCause() : error;
+        return cause.getClass().getSimpleName();
+    }
+}
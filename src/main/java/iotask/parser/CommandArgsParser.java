@@ -1,14 +1,19 @@
 package main.java.iotask.parser;
 
+import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * An abstract class for parsing command arguments based on a specified regular expression pattern.
+ * The arguments are validated and extracted in a single match against the pattern, which is compiled once when the parser is created.
+ * The parser holds no state between calls: every call returns a new immutable object with the parsed arguments,
+ * so a single parser can be shared between threads.
  *
+ * @param <T> the type of the parsed arguments
  * @author Nikita Gubin
  */
-public abstract class CommandArgsParser {
+public abstract class CommandArgsParser<T> {
 
     /**
      * The regular expression pattern used for parsing command arguments.
@@ -17,13 +22,6 @@ public abstract class CommandArgsParser {
      */
     private final Pattern pattern;
 
-    /**
-     * The matcher for matching the command arguments against the pattern.
-     *
-     * @see Matcher
-     */
-    protected Matcher matcher;
-
     /**
      * Constructs a new {@link CommandArgsParser} with the specified regular expression pattern.
      *
@@ -34,12 +32,25 @@ public abstract class CommandArgsParser {
     }
 
     /**
-     * Parses the provided arguments based on the regular expression pattern.
+     * Validates and parses the provided arguments based on the regular expression pattern.
      *
      * @param arguments the command arguments to be parsed
+     * @return the parsed arguments, or an empty optional if the arguments do not match the pattern
      */
-    public void parse(String arguments) {
-        matcher = pattern.matcher(arguments);
-        matcher.matches();
+    public Optional<T> parse(String arguments) {
+        Matcher matcher = pattern.matcher(arguments);
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        return Optional.of(toArguments(matcher));
     }
-}
\ No newline at end of file
+
+    /**
+     * Extracts the parsed arguments from the matcher of the command arguments.
+     *
+     * @param matcher the matcher that has matched the command arguments
+     * @return the parsed arguments
+     * @see Matcher
+     */
+    protected abstract T toArguments(Matcher matcher);
+}
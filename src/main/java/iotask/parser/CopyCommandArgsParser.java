@@ -2,12 +2,14 @@ package main.java.iotask.parser;
 
 import main.java.iotask.command.impl.CopyFileCommandHandler;
 
+import java.util.regex.Matcher;
+
 /**
  * A parser for parsing command arguments specific to the copy file command.
  *
  * @author Nikita Gubin
  */
-public final class CopyCommandArgsParser extends CommandArgsParser {
+public final class CopyCommandArgsParser extends CommandArgsParser<CopyCommandArgsParser.Arguments> {
 
     /**
      * Constructs a new {@link CopyCommandArgsParser} with the regular expression pattern from the {@link CopyFileCommandHandler}.
@@ -19,20 +21,27 @@ public final class CopyCommandArgsParser extends CommandArgsParser {
     }
 
     /**
-     * Retrieves the source file path from the parsed command arguments.
+     * Extracts the copy engine name, the source and the destination paths from the matched command arguments.
      *
-     * @return the source file path
+     * @param matcher the matcher that has matched the command arguments
+     * @return the parsed copy command arguments
      */
-    public String getSourceFilePath() {
-        return matcher.group(1);
+    @Override
+    protected Arguments toArguments(Matcher matcher) {
+        if (matcher.group(4) != null) {
+            return new Arguments(matcher.group(1), matcher.group(4), matcher.group(5), true);
+        }
+        return new Arguments(matcher.group(1), matcher.group(2), matcher.group(3), false);
     }
 
     /**
-     * Retrieves the destination file path from the parsed command arguments.
+     * The parsed copy command arguments.
      *
-     * @return the destination file path
+     * @param engine              the copy engine name, or null if not provided
+     * @param sourceFilePath      the source file path, or the source directory or glob pattern of a tree copy
+     * @param destinationFilePath the destination file path, or the destination directory of a tree copy
+     * @param tree                whether the files selected by the source are copied into the destination directory
      */
-    public String getDestinationFilePath() {
-        return matcher.group(2);
+    public record Arguments(String engine, String sourceFilePath, String destinationFilePath, boolean tree) {
     }
-}
\ No newline at end of file
+}
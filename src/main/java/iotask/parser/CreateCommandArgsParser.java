@@ -2,12 +2,14 @@ package main.java.iotask.parser;
 
 import main.java.iotask.command.impl.CreateFileCommandHandler;
 
+import java.util.regex.Matcher;
+
 /**
  * A parser for parsing command arguments specific to the create file command.
  *
  * @author Nikita Gubin
  */
-public final class CreateCommandArgsParser extends CommandArgsParser {
+public final class CreateCommandArgsParser extends CommandArgsParser<CreateCommandArgsParser.Arguments> {
 
     /**
      * Constructs a new {@link CreateCommandArgsParser} with the regular expression pattern from the {@link CreateFileCommandHandler}.
@@ -19,20 +21,23 @@ public final class CreateCommandArgsParser extends CommandArgsParser {
     }
 
     /**
-     * Retrieves the file path from the parsed command arguments.
+     * Extracts the file path and the text content, or the manifest path, from the matched command arguments.
      *
-     * @return the file path
+     * @param matcher the matcher that has matched the command arguments
+     * @return the parsed create command arguments
      */
-    public String getFilePath() {
-        return matcher.group(1);
+    @Override
+    protected Arguments toArguments(Matcher matcher) {
+        return new Arguments(matcher.group(1), matcher.group(3), matcher.group(4));
     }
 
     /**
-     * Retrieves the text content from the parsed command arguments.
+     * The parsed create command arguments.
      *
-     * @return the text content, or null if not provided
+     * @param filePath     the file path, possibly holding a {@code {from..to}} range, or null if a manifest is provided
+     * @param text         the text content, or null if not provided
+     * @param manifestPath the path to the manifest of the files to create, or null if a file path is provided
      */
-    public String getText() {
-        return matcher.group(3);
+    public record Arguments(String filePath, String text, String manifestPath) {
     }
-}
\ No newline at end of file
+}
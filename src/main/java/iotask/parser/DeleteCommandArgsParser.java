@@ -2,12 +2,14 @@ package main.java.iotask.parser;
 
 import main.java.iotask.command.impl.DeleteFileCommandHandler;
 
+import java.util.regex.Matcher;
+
 /**
  * A parser for parsing command arguments specific to the delete file command.
  *
  * @author Nikita Gubin
  */
-public final class DeleteCommandArgsParser extends CommandArgsParser {
+public final class DeleteCommandArgsParser extends CommandArgsParser<DeleteCommandArgsParser.Arguments> {
 
     /**
      * Constructs a new {@link DeleteCommandArgsParser} with the regular expression pattern from the {@link DeleteFileCommandHandler}.
@@ -19,11 +21,25 @@ public final class DeleteCommandArgsParser extends CommandArgsParser {
     }
 
     /**
-     * Retrieves the file path from the parsed command arguments.
+     * Extracts the file path, or the directory or glob pattern of a tree deletion, from the matched command arguments.
+     *
+     * @param matcher the matcher that has matched the command arguments
+     * @return the parsed delete command arguments
+     */
+    @Override
+    protected Arguments toArguments(Matcher matcher) {
+        if (matcher.group(2) != null) {
+            return new Arguments(matcher.group(2), true);
+        }
+        return new Arguments(matcher.group(1), false);
+    }
+
+    /**
+     * The parsed delete command arguments.
      *
-     * @return the file path
+     * @param filePath the file path, or the directory or glob pattern of a tree deletion
+     * @param tree     whether the files selected by the directory or glob pattern are deleted
      */
-    public String getFilePath() {
-        return matcher.group(1);
+    public record Arguments(String filePath, boolean tree) {
     }
-}
\ No newline at end of file
+}
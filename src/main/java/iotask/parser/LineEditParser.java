@@ -0,0 +1,46 @@
+package main.java.iotask.parser;
+
+import main.java.iotask.io.LineEdit;
+
+import java.util.regex.Matcher;
+
+/**
+ * A parser for parsing a single edit of an update patch file.
+ * An edit has the same format as the update command option it stands for: {@code -a "text"}, {@code -nl N "text"} or {@code -dl N}.
+ *
+ * @author Nikita Gubin
+ * @see LineEdit
+ */
+public final class LineEditParser extends CommandArgsParser<LineEdit> {
+
+    /**
+     * The regular expression for validating the format of an edit.
+     */
+    public static final String LINE_EDIT_REGEX = "^(?:-a \"([^\"]+)\"|-nl (\\d{1,9}) \"([^\"]+)\"|-dl (\\d{1,9}))\\s*$";
+
+    /**
+     * Constructs a new {@link LineEditParser} with the regular expression pattern of an edit.
+     *
+     * @see LineEditParser#LINE_EDIT_REGEX
+     */
+    public LineEditParser() {
+        super(LINE_EDIT_REGEX);
+    }
+
+    /**
+     * Extracts the kind, the line number and the text of the edit from the matched edit.
+     *
+     * @param matcher the matcher that has matched the edit
+     * @return the parsed edit
+     */
+    @Override
+    protected LineEdit toArguments(Matcher matcher) {
+        if (matcher.group(1) != null) {
+            return new LineEdit(LineEdit.Kind.APPEND, 0, matcher.group(1));
+        } else if (matcher.group(2) != null) {
+            return new LineEdit(LineEdit.Kind.INSERT, Integer.parseInt(matcher.group(2)), matcher.group(3));
+        } else {
+            return new LineEdit(LineEdit.Kind.DELETE, Integer.parseInt(matcher.group(4)), null);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package main.java.iotask.parser;
+
+import main.java.iotask.command.impl.SearchFileCommandHandler;
+
+import java.util.regex.Matcher;
+
+/**
+ * A parser for parsing command arguments specific to the search file command.
+ *
+ * @author Nikita Gubin
+ */
+public final class SearchCommandArgsParser extends CommandArgsParser<SearchCommandArgsParser.Arguments> {
+
+    /**
+     * Constructs a new {@link SearchCommandArgsParser} with the regular expression pattern from the {@link SearchFileCommandHandler}.
+     *
+     * @see SearchFileCommandHandler#SEARCH_COMMAND_ARGS_REGEX
+     */
+    public SearchCommandArgsParser() {
+        super(SearchFileCommandHandler.SEARCH_COMMAND_ARGS_REGEX);
+    }
+
+    /**
+     * Extracts the file path and the pattern from the matched command arguments.
+     *
+     * @param matcher the matcher that has matched the command arguments
+     * @return the parsed search command arguments
+     */
+    @Override
+    protected Arguments toArguments(Matcher matcher) {
+        return new Arguments(matcher.group(1), matcher.group(2));
+    }
+
+    /**
+     * The parsed search command arguments.
+     *
+     * @param filePath the file path
+     * @param pattern  the literal text to find
+     */
+    public record Arguments(String filePath, String pattern) {
+    }
+}
@@ -0,0 +1,41 @@
+package main.java.iotask.parser;
+
+import main.java.iotask.command.impl.StatFileCommandHandler;
+
+import java.util.regex.Matcher;
+
+/**
+ * A parser for parsing command arguments specific to the stat file command.
+ *
+ * @author Nikita Gubin
+ */
+public final class StatCommandArgsParser extends CommandArgsParser<StatCommandArgsParser.Arguments> {
+
+    /**
+     * Constructs a new {@link StatCommandArgsParser} with the regular expression pattern from the {@link StatFileCommandHandler}.
+     *
+     * @see StatFileCommandHandler#STAT_COMMAND_ARGS_REGEX
+     */
+    public StatCommandArgsParser() {
+        super(StatFileCommandHandler.STAT_COMMAND_ARGS_REGEX);
+    }
+
+    /**
+     * Extracts the file path from the matched command arguments.
+     *
+     * @param matcher the matcher that has matched the command arguments
+     * @return the parsed stat command arguments
+     */
+    @Override
+    protected Arguments toArguments(Matcher matcher) {
+        return new Arguments(matcher.group(1));
+    }
+
+    /**
+     * The parsed stat command arguments.
+     *
+     * @param filePath the file path
+     */
+    public record Arguments(String filePath) {
+    }
+}
@@ -2,19 +2,14 @@ package main.java.iotask.parser;
 
 import main.java.iotask.command.impl.UpdateFileCommandHandler;
 
+import java.util.regex.Matcher;
+
 /**
  * A parser for parsing command arguments specific to the update file command.
  *
  * @author Nikita Gubin
  */
-public final class UpdateCommandArgsParser extends CommandArgsParser {
-
-    /**
-     * The parsed update option details.
-     *
-     * @see OptionParsed
-     */
-    private OptionParsed optionParsed;
+public final class UpdateCommandArgsParser extends CommandArgsParser<UpdateCommandArgsParser.Arguments> {
 
     /**
      * Constructs a new {@code UpdateCommandArgsParser} with the regular expression pattern from the {@link UpdateFileCommandHandler}.
@@ -26,119 +21,47 @@ public final class UpdateCommandArgsParser extends CommandArgsParser {
     }
 
     /**
-     * Parses the command arguments and extracts the update option details.
+     * Extracts the memory-mapped mode flag, the file path and the update option details from the matched command arguments.
      *
-     * @param arguments the command arguments to be parsed
-     * @see CommandArgsParser#parse(String)
-     */
-    @Override
-    public void parse(String arguments) {
-        super.parse(arguments);
-        parseOption();
-    }
-
-    /**
-     * Parses the command arguments and extracts the update option details.
-     *
-     * @see UpdateCommandArgsParser#optionParsed
+     * @param matcher the matcher that has matched the command arguments
+     * @return the parsed update command arguments
      * @see UpdateFileCommandHandler#A_OPTION
      * @see UpdateFileCommandHandler#NL_OPTION
      * @see UpdateFileCommandHandler#DL_OPTION
+     * @see UpdateFileCommandHandler#P_OPTION
+     * @see UpdateFileCommandHandler#R_OPTION
      */
-    private void parseOption() {
-        String optionString = matcher.group(2);
+    @Override
+    protected Arguments toArguments(Matcher matcher) {
+        boolean mmap = matcher.group(1) != null;
+        String filePath = matcher.group(2);
+        String optionString = matcher.group(3);
 
         if (optionString.startsWith(UpdateFileCommandHandler.A_OPTION)) {
-            optionParsed = new OptionParsed(UpdateFileCommandHandler.A_OPTION, matcher.group(3));
+            return new Arguments(mmap, filePath, UpdateFileCommandHandler.A_OPTION, matcher.group(4), null, null);
         } else if (optionString.startsWith(UpdateFileCommandHandler.NL_OPTION)) {
-            optionParsed = new OptionParsed(UpdateFileCommandHandler.NL_OPTION, matcher.group(5), matcher.group(4));
+            return new Arguments(mmap, filePath, UpdateFileCommandHandler.NL_OPTION, matcher.group(6), matcher.group(5), null);
         } else if (optionString.startsWith(UpdateFileCommandHandler.DL_OPTION)) {
-            optionParsed = new OptionParsed(UpdateFileCommandHandler.DL_OPTION, null, matcher.group(6));
+            return new Arguments(mmap, filePath, UpdateFileCommandHandler.DL_OPTION, null, matcher.group(7), null);
+        } else if (optionString.startsWith(UpdateFileCommandHandler.P_OPTION)) {
+            return new Arguments(mmap, filePath, UpdateFileCommandHandler.P_OPTION, matcher.group(8), null, null);
+        } else if (optionString.startsWith(UpdateFileCommandHandler.R_OPTION)) {
+            return new Arguments(mmap, filePath, UpdateFileCommandHandler.R_OPTION, matcher.group(9), null, matcher.group(10));
         } else {
-            optionParsed = new OptionParsed(null, matcher.group(7));
+            return new Arguments(mmap, filePath, null, matcher.group(11), null, null);
         }
     }
 
     /**
-     * Retrieves the file path from the parsed command arguments.
-     *
-     * @return the file path
-     */
-    public String getFilePath() {
-        return matcher.group(1);
-    }
-
-    /**
-     * Retrieves the text content from the parsed command arguments.
-     *
-     * @return the text content
-     * @see OptionParsed#text
-     */
-    public String getText() {
-        return optionParsed.text;
-    }
-
-    /**
-     * Retrieves the update option (-a,-nl,-dl) from the parsed command arguments.
-     *
-     * @return the update option
-     * @see OptionParsed#updateOption
-     */
-    public String getOption() {
-        return optionParsed.updateOption;
-    }
-
-    /**
-     * Retrieves the line number from the parsed command arguments.
+     * The parsed update command arguments.
      *
-     * @return the line number
-     * @see OptionParsed#lineNumber
+     * @param mmap        whether the line is inserted or deleted through memory-mapped buffers (--mmap)
+     * @param filePath    the file path
+     * @param option      the update option (-a,-nl,-dl,-p,-r), or null if the file content is replaced
+     * @param text        the text content, the patch file path for the -p option, the regular expression for the -r option, or null for the -dl option
+     * @param lineNumber  the line number for the -nl and -dl options, or null otherwise
+     * @param replacement the replacement of the matches for the -r option, or null otherwise
      */
-    public String getLineNumber() {
-        return optionParsed.lineNumber;
-    }
-
-    /**
-     * A helper class for storing the parsed update option details.
-     */
-    private static class OptionParsed {
-
-        /**
-         * The update option (-a,-nl,-dl) extracted from the command arguments.
-         */
-        String updateOption;
-
-        /**
-         * The text content extracted from the command arguments.
-         */
-        String text;
-
-        /**
-         * The line number extracted from the command arguments.
-         */
-        String lineNumber;
-
-        /**
-         * Constructs a new {@link OptionParsed} with the specified update option and text content.
-         *
-         * @param updateOption the update option
-         * @param text         the text content
-         */
-        OptionParsed(String updateOption, String text) {
-            this.updateOption = updateOption;
-            this.text = text;
-        }
-
-        /**
-         * Constructs a new {@link OptionParsed} with the specified update option, text content and line number.
-         *
-         * @param updateOption the update option
-         * @param text         the text content
-         * @param lineNumber   the line number
-         */
-        OptionParsed(String updateOption, String text, String lineNumber) {
-            this(updateOption, text);
-            this.lineNumber = lineNumber;
-        }
+    public record Arguments(boolean mmap, String filePath, String option, String text, String lineNumber, String replacement) {
     }
-}
\ No newline at end of file
+}
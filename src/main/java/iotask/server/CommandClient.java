@@ -0,0 +1,175 @@
+package main.java.iotask.server;
+
+import main.java.iotask.executor.BatchCommandRunner;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+/**
+ * A client sending a script of commands to a {@link CommandServer}.
+ * The commands are sent without waiting for the answers, which are read as they arrive, so the round trip is paid once per script rather than per command.
+ * Blank lines and lines starting with {@code #} are skipped and sending stops at the exit command.
+ * Failures are reported to the output the same way a {@link BatchCommandRunner} reports them, and the lines printed by the commands are printed to it as they arrive.
+ * The client of a TCP port first sends the token the server was started with and waits for it to be accepted.
+ *
+ * @author Nikita Gubin
+ * @see CommandServer
+ */
+public class CommandClient {
+
+    /**
+     * The logger for {@link CommandClient} class.
+     */
+    private static final Logger logger = Logger.getLogger(CommandClient.class.getName());
+
+    /**
+     * The address of the server.
+     */
+    private final SocketAddress address;
+
+    /**
+     * The token sent to the server listening on a TCP port.
+     */
+    private final String token;
+
+    /**
+     * The output the failures are reported to.
+     */
+    private final PrintWriter out;
+
+    /**
+     * Constructs a new {@link CommandClient} sending commands to the server at the address and reporting to the output.
+     *
+     * @param address the localhost TCP address or the Unix domain socket address of the server
+     * @param token   the token sent to a server listening on a TCP port, ignored for a Unix domain socket
+     * @param out     the output the failures are reported to
+     */
+    public CommandClient(SocketAddress address, String token, PrintWriter out) {
+        this.address = address;
+        this.token = token;
+        this.out = out;
+    }
+
+    /**
+     * Sends the commands of the script to the server and waits for all answers.
+     *
+     * @param script the reader of the script, one command per line
+     * @return the summary of the run
+     * @throws IOException if an I/O error occurs reading the script or talking to the server
+     */
+    public BatchCommandRunner.Summary run(BufferedReader script) throws IOException {
+        long start = System.nanoTime();
+        int succeeded = 0;
+        int failed = 0;
+
+        try (SocketChannel channel = SocketChannel.open(address);
+             BufferedReader answers = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8))) {
+            if (address instanceof InetSocketAddress) {
+                authenticate(channel, answers);
+            }
+            BlockingQueue<SentCommand> sent = new LinkedBlockingQueue<>();
+            CompletableFuture<Void> sending = CompletableFuture.runAsync(() -> send(script, channel, sent));
+
+            String answer;
+            while ((answer = answers.readLine()) != null) {
+                if (answer.startsWith(CommandServer.OUTPUT_PREFIX)) {
+                    out.println(answer.substring(CommandServer.OUTPUT_PREFIX.length()));
+                    continue;
+                }
+                SentCommand command = sent.take();
+                if (answer.startsWith(CommandServer.ERROR_PREFIX)) {
+                    failed++;
+                    out.println("Line " + command.lineNumber() + ": " + command.commandLine() + ": " + answer.substring(CommandServer.ERROR_PREFIX.length()));
+                } else {
+                    succeeded++;
+                }
+            }
+            sending.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof UncheckedIOException unchecked ? unchecked.getCause() : new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the answers", e);
+        }
+
+        BatchCommandRunner.Summary summary = new BatchCommandRunner.Summary(succeeded, failed, System.nanoTime() - start);
+        logger.log(Level.INFO, "Script executed by {0}: {1}", new Object[]{address, summary});
+        return summary;
+    }
+
+    /**
+     * Sends the token to the server and waits for it to be accepted.
+     *
+     * @param channel the connection
+     * @param answers the reader of the answers
+     * @throws IOException if the token is rejected or an I/O error occurs talking to the server
+     */
+    private void authenticate(SocketChannel channel, BufferedReader answers) throws IOException {
+        Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8);
+        writer.write(CommandServer.AUTH_PREFIX + (token != null ? token : "") + "\n");
+        writer.flush();
+        String answer = answers.readLine();
+        if (!CommandServer.OK.equals(answer)) {
+            throw new IOException("The server rejected the token: " + answer);
+        }
+    }
+
+    /**
+     * Sends the commands of the script to the server and closes the sending side of the connection.
+     *
+     * @param script  the reader of the script
+     * @param channel the connection
+     * @param sent    the queue of the sent commands waiting for their answers
+     */
+    private static void send(BufferedReader script, SocketChannel channel, BlockingQueue<SentCommand> sent) {
+        try {
+            Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+            int lineNumber = 0;
+            String commandLine;
+            while ((commandLine = script.readLine()) != null) {
+                lineNumber++;
+                String command = commandLine.strip();
+                if (command.isEmpty() || command.startsWith(CommandServer.COMMENT_PREFIX)) {
+                    continue;
+                }
+                if (CommandServer.isExitCommand(command)) {
+                    break;
+                }
+                sent.add(new SentCommand(lineNumber, command));
+                writer.write(command + "\n");
+                if (!script.ready()) {
+                    writer.flush();
+                }
+            }
+            writer.flush();
+            channel.shutdownOutput();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A command of the script sent to the server.
+     *
+     * @param lineNumber  the number of the script line holding the command
+     * @param commandLine the command line
+     */
+    private record SentCommand(int lineNumber, String commandLine) {
+    }
+}
@@ -0,0 +1,342 @@
+package main.java.iotask.server;
+
+import main.java.iotask.command.CommandName;
+import main.java.iotask.executor.CommandExecutor;
+import main.java.iotask.executor.CommandOutput;
+import main.java.iotask.executor.ConcurrentCommandExecutor;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import jdk.net.ExtendedSocketOptions;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+/**
+ * A daemon executing the commands sent by clients over a local socket, so short-lived callers share one warmed-up JVM.
+ * The server listens on a localhost TCP port or on a Unix domain socket and speaks a line protocol:
+ * the client sends one command per line and the server answers every line with {@code OK} or {@code ERR <message>}, in the order the lines were sent.
+ * What a command prints, such as the matches of a search or the metrics report, is captured through {@link CommandOutput}
+ * and sent before its answer, every printed line prefixed with {@code "> "}.
+ * Blank lines and lines starting with {@code #} are answered with {@code OK}, the exit command closes the connection instead of stopping the server.
+ * The commands of every connection are executed one after another, while the commands of different connections are executed by a shared
+ * {@link ConcurrentCommandExecutor}, so commands touching the same file keep the order they were received in.
+ * <p>
+ * Every client may run any command with the rights of the server, so only the user running the server is let in.
+ * The Unix domain socket file is made readable and writable by its owner only, and a connection from another user is closed
+ * if the platform reports the peer credentials. A TCP port is reachable by every local user, so the server listens on it only with a token,
+ * which a client must send as {@code AUTH <token>} on its first line before any command.
+ *
+ * @author Nikita Gubin
+ * @see CommandClient
+ */
+public class CommandServer implements AutoCloseable {
+
+    /**
+     * The logger for {@link CommandServer} class.
+     */
+    private static final Logger logger = Logger.getLogger(CommandServer.class.getName());
+
+    /**
+     * The answer to a command executed successfully.
+     */
+    static final String OK = "OK";
+
+    /**
+     * The prefix of the answer to a failed command, followed by the error message.
+     */
+    static final String ERROR_PREFIX = "ERR ";
+
+    /**
+     * The prefix of the comment lines.
+     */
+    static final String COMMENT_PREFIX = "#";
+
+    /**
+     * The prefix of the lines printed by a command, sent before the answer to the command.
+     */
+    static final String OUTPUT_PREFIX = "> ";
+
+    /**
+     * The prefix of the first line a client of a TCP port sends, followed by the token.
+     */
+    static final String AUTH_PREFIX = "AUTH ";
+
+    /**
+     * The highest TCP port number.
+     */
+    private static final int MAX_PORT = 65535;
+
+    /**
+     * The permissions of the Unix domain socket file: readable and writable by its owner only.
+     */
+    private static final String SOCKET_PERMISSIONS = "rw-------";
+
+    /**
+     * The address the server listens on.
+     */
+    private final SocketAddress address;
+
+    /**
+     * The token a client of a TCP port must send, or null for a Unix domain socket.
+     */
+    private final byte[] token;
+
+    /**
+     * The name of the user owning the Unix domain socket file, or null for a TCP port.
+     */
+    private final String owner;
+
+    /**
+     * The channel accepting the connections.
+     */
+    private final ServerSocketChannel serverChannel;
+
+    /**
+     * The executor shared by all connections.
+     */
+    private final ConcurrentCommandExecutor commandExecutor;
+
+    /**
+     * The threads serving the connections.
+     */
+    private final ExecutorService connections;
+
+    /**
+     * Constructs a new {@link CommandServer} and binds it to the address.
+     * A stale Unix domain socket file left by a previous server is replaced, and the new one is made accessible by its owner only.
+     * Any other file at the socket path, or the socket of a server still listening on it, makes the server refuse to start.
+     *
+     * @param commandExecutor the executor the commands are executed with
+     * @param address         the localhost TCP address or the Unix domain socket address to listen on
+     * @param token           the token the clients of a TCP port must send, ignored for a Unix domain socket
+     * @param parallelism     the number of commands executed at the same time
+     * @param maxConnections  the number of connections served at the same time, further connections wait for a free thread
+     * @throws IOException if the server cannot be bound to the address, the socket path is taken, or the address is a TCP port and the token is empty
+     */
+    public CommandServer(CommandExecutor commandExecutor, SocketAddress address, String token, int parallelism, int maxConnections) throws IOException {
+        if (address instanceof UnixDomainSocketAddress unixAddress) {
+            deleteStaleSocket(unixAddress);
+            this.serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            this.serverChannel.bind(address);
+            restrictToOwner(unixAddress.getPath());
+            this.token = null;
+            this.owner = Files.getOwner(unixAddress.getPath()).getName();
+        } else {
+            if (token == null || token.isBlank()) {
+                throw new IOException("Listening on a TCP port requires a token, which every client must send");
+            }
+            this.serverChannel = ServerSocketChannel.open();
+            this.serverChannel.bind(address);
+            this.token = token.getBytes(StandardCharsets.UTF_8);
+            this.owner = null;
+        }
+        this.address = address;
+        CommandOutput.install();
+        this.commandExecutor = new ConcurrentCommandExecutor(commandExecutor, parallelism);
+        this.connections = Executors.newFixedThreadPool(maxConnections);
+    }
+
+    /**
+     * Deletes the socket file left at the address by a server that is no longer running.
+     * The path is left alone unless it is a socket no server accepts connections on.
+     *
+     * @param address the Unix domain socket address
+     * @throws IOException if the path is taken by another file or a running server, or an I/O error occurs deleting the socket
+     */
+    private static void deleteStaleSocket(UnixDomainSocketAddress address) throws IOException {
+        Path path = address.getPath();
+        if (Files.notExists(path, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        if (!Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS).isOther()) {
+            throw new IOException("The socket path is taken by a file which is not a socket: " + path);
+        }
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(address);
+            throw new IOException("A server is already listening on the socket: " + path);
+        } catch (ConnectException e) {
+            logger.log(Level.INFO, "Replacing a stale socket: {0}", path);
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * Makes the socket file readable and writable by its owner only, as connecting to a Unix domain socket requires write access to its file.
+     *
+     * @param path the path to the socket file
+     * @throws IOException if an I/O error occurs changing the permissions
+     */
+    private static void restrictToOwner(Path path) throws IOException {
+        PosixFileAttributeView view = Files.getFileAttributeView(path, PosixFileAttributeView.class);
+        if (view != null) {
+            view.setPermissions(PosixFilePermissions.fromString(SOCKET_PERMISSIONS));
+        } else {
+            logger.log(Level.WARNING, "Could not restrict the access to the socket file: {0}", path);
+        }
+    }
+
+    /**
+     * Parses the address to listen on or to connect to.
+     *
+     * @param address a port number from 0 to 65535 for a localhost TCP socket, or the path to a Unix domain socket
+     * @return the socket address
+     * @throws IllegalArgumentException if the address is a number out of the port range or an invalid path
+     */
+    public static SocketAddress addressOf(String address) {
+        if (address.matches("\\d+")) {
+            if (address.length() > 5 || Integer.parseInt(address) > MAX_PORT) {
+                throw new IllegalArgumentException("Port out of range: " + address + ". Use a port from 0 to " + MAX_PORT + " or the path to a Unix domain socket");
+            }
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(address));
+        }
+        return UnixDomainSocketAddress.of(address);
+    }
+
+    /**
+     * Accepts the connections and serves them until the server is closed.
+     *
+     * @throws IOException if an I/O error occurs accepting a connection
+     */
+    public void serve() throws IOException {
+        logger.log(Level.INFO, "Listening for commands on {0}", address);
+        while (serverChannel.isOpen()) {
+            SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+            } catch (AsynchronousCloseException e) {
+                break;
+            }
+            connections.execute(() -> handle(channel));
+        }
+    }
+
+    /**
+     * Stops accepting connections, waits for the received commands to complete and closes the open connections.
+     */
+    @Override
+    public void close() {
+        try {
+            serverChannel.close();
+            if (address instanceof UnixDomainSocketAddress unixAddress) {
+                Files.deleteIfExists(unixAddress.getPath());
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Error occurred closing the server", e);
+        }
+        commandExecutor.close();
+        connections.shutdownNow();
+    }
+
+    /**
+     * Executes the commands received over the connection and answers every line.
+     * The answers are flushed when no more received lines are waiting, so pipelined commands share the writes.
+     *
+     * @param channel the connection
+     */
+    private void handle(SocketChannel channel) {
+        logger.log(Level.INFO, "Client connected: {0}", channel);
+        try (channel;
+             BufferedReader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+             Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8))) {
+            if (!isAuthorized(channel, reader, writer)) {
+                logger.log(Level.WARNING, "Client rejected: {0}", channel);
+                return;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String command = line.strip();
+                if (isExitCommand(command)) {
+                    writer.write(OK + "\n");
+                    break;
+                }
+                writer.write(execute(command) + "\n");
+                if (!reader.ready()) {
+                    writer.flush();
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Connection closed with an error: " + channel, e);
+        }
+        logger.log(Level.INFO, "Client disconnected");
+    }
+
+    /**
+     * Tells whether the client may send commands. A client of a Unix domain socket must run as the owner of the socket file,
+     * when the platform reports the peer credentials, and a client of a TCP port must send the token on its first line, which is answered.
+     *
+     * @param channel the connection
+     * @param reader  the reader of the lines sent by the client
+     * @param writer  the writer of the answers
+     * @return true if the client is let in
+     * @throws IOException if an I/O error occurs reading the credentials or talking to the client
+     */
+    private boolean isAuthorized(SocketChannel channel, BufferedReader reader, Writer writer) throws IOException {
+        if (token == null) {
+            return !channel.supportedOptions().contains(ExtendedSocketOptions.SO_PEERCRED)
+                    || channel.getOption(ExtendedSocketOptions.SO_PEERCRED).user().getName().equals(owner);
+        }
+
+        String line = reader.readLine();
+        boolean authorized = line != null && line.startsWith(AUTH_PREFIX)
+                && MessageDigest.isEqual(line.substring(AUTH_PREFIX.length()).strip().getBytes(StandardCharsets.UTF_8), token);
+        writer.write((authorized ? OK : ERROR_PREFIX + "Authentication failed") + "\n");
+        writer.flush();
+        return authorized;
+    }
+
+    /**
+     * Executes the command and returns the answer to it, preceded by the lines the command printed.
+     *
+     * @param command the stripped command line
+     * @return the printed lines prefixed with {@code "> "}, then {@code OK}, or {@code ERR} followed by the error message on a single line
+     */
+    private String execute(String command) {
+        if (command.isEmpty() || command.startsWith(COMMENT_PREFIX)) {
+            return OK;
+        }
+        try {
+            return toOutputLines(commandExecutor.submitCapturingOutput(command).join()) + OK;
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return ERROR_PREFIX + String.valueOf(cause.getMessage()).replaceAll("\\R", " ");
+        }
+    }
+
+    private static String toOutputLines(String output) {
+        if (output.isEmpty()) {
+            return "";
+        }
+        StringBuilder lines = new StringBuilder();
+        output.lines().forEach(line -> lines.append(OUTPUT_PREFIX).append(line).append('\n'));
+        return lines.toString();
+    }
+
+    static boolean isExitCommand(String command) {
+        String commandName = command.split(" ", 2)[0];
+        return commandName.equalsIgnoreCase(CommandName.EXIT.name());
+    }
+}